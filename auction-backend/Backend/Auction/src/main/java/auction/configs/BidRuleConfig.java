@@ -0,0 +1,104 @@
+package auction.configs;
+
+import auction.entities.DTO.UserIdentityDTO;
+import auction.entities.Item;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.Role;
+import auction.exceptions.ServiceException;
+import auction.services.BidContext;
+import auction.services.BidIncrementTable;
+import auction.services.BidRule;
+import auction.services.BidRule.Cost;
+import auction.services.BidRule.Stage;
+import auction.services.CurrentPriceIndex.CurrentPrice;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+/**
+ * The rules every bid goes through; see {@link auction.services.BidRulePipeline}.
+ * A new rule is just another bean.
+ */
+@Configuration
+public class BidRuleConfig {
+
+    @Bean
+    public BidRule ownAccountRule() {
+        return BidRule.of("own-account", Stage.ADMISSION, Cost.REQUEST, bid -> {
+            if (bid.getPrincipal() == null) {
+                throw new ServiceException("User must be logged in to place a bid.", new RuntimeException());
+            }
+            if (!bid.getPrincipal().getId().equals(bid.getCustomerId())) {
+                throw new IllegalArgumentException("You can only place bids on behalf of your own account.");
+            }
+        });
+    }
+
+    @Bean
+    public BidRule bidderRoleRule() {
+        return BidRule.of("bidder-role", Stage.ADMISSION, Cost.MEMORY, bid -> {
+            UserIdentityDTO customer = bid.getCustomer();
+            if (customer.getRole() == Role.ADMIN) {
+                throw new IllegalArgumentException("Admins cannot place bids.");
+            }
+            if (customer.getRole() != Role.CUSTOMER && customer.getRole() != Role.SELLER) {
+                throw new IllegalArgumentException("Only customers or sellers can place bids.");
+            }
+        });
+    }
+
+    @Bean
+    public BidRule activeAuctionRule() {
+        return BidRule.of("active-auction", Stage.ADMISSION, Cost.DATABASE, bid -> {
+            if (!bid.getItem().getAuctionStatus().equals(AuctionStatus.ACTIVE)) {
+                throw new IllegalArgumentException("Bidding is only allowed when the auction is ACTIVE.");
+            }
+        });
+    }
+
+    @Bean
+    public BidRule notOwnItemRule() {
+        return BidRule.of("not-own-item", Stage.ADMISSION, Cost.DATABASE, bid -> {
+            User seller = bid.getItem().getSeller();
+            if (seller == null) {
+                throw new IllegalArgumentException("Item must have a seller before bidding.");
+            }
+            if (seller.getId().equals(bid.getCustomerId())) {
+                throw new IllegalArgumentException("You cannot bid on your own item.");
+            }
+        });
+    }
+
+    @Bean
+    public BidRule buyNowRule() {
+        return BidRule.of("buy-now", Stage.PRICE, Cost.MEMORY, bid -> {
+            BigDecimal buyNowPrice = bid.getItem().getBuyNowPrice();
+            if (buyNowPrice == null) {
+                return;
+            }
+            CurrentPrice currentPrice = bid.getCurrentPrice();
+            if (currentPrice.hasBids() && currentPrice.getAmount().compareTo(buyNowPrice) >= 0) {
+                throw new IllegalArgumentException("This item has already been bought.");
+            }
+            if (bid.getAmount().compareTo(buyNowPrice) >= 0) {
+                throw new IllegalArgumentException("Bids must stay below the buy-now price of " + buyNowPrice
+                        + "; buy the item instead.");
+            }
+        });
+    }
+
+    @Bean
+    public BidRule minimumIncrementRule(BidIncrementTable bidIncrementTable) {
+        return BidRule.of("minimum-increment", Stage.PRICE, Cost.MEMORY, bid -> {
+            Item item = bid.getItem();
+            CurrentPrice currentPrice = bid.getCurrentPrice();
+            BigDecimal lastAmount = currentPrice.hasBids() ? currentPrice.getAmount() : item.getStartingPrice();
+            BigDecimal minNextBid = bidIncrementTable.minimumNextBid(item, lastAmount);
+            if (bid.getAmount().compareTo(minNextBid) < 0) {
+                throw new IllegalArgumentException("Bid must be at least " + minNextBid);
+            }
+        });
+    }
+}
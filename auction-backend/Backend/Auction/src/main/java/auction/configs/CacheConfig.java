@@ -0,0 +1,55 @@
+package auction.configs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded in-memory caches for data that is read far more often than it changes.
+ * Caffeine evicts by W-TinyLFU once a cache is full, every entry also expires after
+ * its time to live, and hit/miss/eviction counts are recorded for /api/cache/stats.
+ * The services that change the underlying rows evict the affected entries.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATEGORIES = "categories";
+    public static final String USERS = "users";
+    public static final String ITEM_SUMMARIES = "itemSummaries";
+    public static final String ITEM_DETAILS = "itemDetails";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${auction.cache.categories.max-size:1000}") long categoriesSize,
+            @Value("${auction.cache.categories.ttl:1h}") Duration categoriesTtl,
+            @Value("${auction.cache.users.max-size:10000}") long usersSize,
+            @Value("${auction.cache.users.ttl:10m}") Duration usersTtl,
+            @Value("${auction.cache.items.max-size:10000}") long itemsSize,
+            @Value("${auction.cache.items.ttl:5m}") Duration itemsTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Only the caches below exist; a typo in a cache name fails instead of creating an unbounded cache.
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(CATEGORIES, build(categoriesSize, categoriesTtl));
+        cacheManager.registerCustomCache(USERS, build(usersSize, usersTtl));
+        cacheManager.registerCustomCache(ITEM_SUMMARIES, build(itemsSize, itemsTtl));
+        cacheManager.registerCustomCache(ITEM_DETAILS, build(itemsSize, itemsTtl));
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> build(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
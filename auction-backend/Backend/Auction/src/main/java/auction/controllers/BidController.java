@@ -6,9 +6,9 @@ package auction.controllers;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,13 +18,26 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
 import auction.entities.Bid;
 import auction.entities.DTO.BidDTO;
+import auction.entities.DTO.BidRuleStatsDTO;
+import auction.entities.DTO.BidSummaryDTO;
+import auction.entities.DTO.ProxyBidDTO;
+import auction.entities.DTO.StreamStatsDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.RO.BidRO;
+import auction.entities.RO.BuyNowRO;
+import auction.entities.RO.ProxyBidRO;
+import auction.entities.response.SideLoadedPage;
+import auction.entities.utils.ResponseUtils;
+import auction.services.AuctionStreamService;
+import auction.services.BidRulePipeline;
 import auction.services.BidService;
-import jakarta.servlet.http.HttpSession;
+import auction.services.ItemService;
 import lombok.RequiredArgsConstructor;
 
 
@@ -39,65 +52,99 @@ public class BidController {
 
 
    private final BidService bidService;
+   private final ItemService itemService;
+   private final AuctionStreamService auctionStreamService;
+   private final BidRulePipeline bidRulePipeline;
 
 
 
 
    @GetMapping
-   public ResponseEntity<List<BidDTO>> getAllBids() {
-       List<BidDTO> bids = bidService.getAllBids()
-                                     .stream()
-                                     .map(BidDTO::new)
-                                     .collect(Collectors.toList());
-       return ResponseEntity.ok(bids);
+   public ResponseEntity<List<BidDTO>> getAllBids(
+           @RequestParam(required = false) String cursor,
+           @RequestParam(required = false) Integer limit) {
+       return ResponseUtils.buildPageResponse(bidService.getAllBids(cursor, limit).map(BidDTO::new));
    }
 
 
 
 
    @GetMapping("/item/{itemId}")
-   public ResponseEntity<List<BidDTO>> getBidsByItem(@PathVariable Long itemId) {
-       List<BidDTO> bids = bidService.getBidsByItem(itemId)
-                                     .stream()
-                                     .map(BidDTO::new)
-                                     .collect(Collectors.toList());
-       return ResponseEntity.ok(bids);
+   public ResponseEntity<List<BidDTO>> getBidsByItem(
+           @PathVariable Long itemId,
+           @RequestParam(required = false) String cursor,
+           @RequestParam(required = false) Integer limit,
+           WebRequest request) {
+       // The item's version moves with every bid, so an unchanged version means an unchanged history
+       String etag = itemService.getETag(itemId);
+       if (etag != null && request.checkNotModified(etag)) {
+           return ResponseUtils.buildNotModifiedResponse(etag);
+       }
+       return ResponseUtils.buildPageResponse(bidService.getBidsByItem(itemId, cursor, limit).map(BidDTO::new), etag);
    }
 
 
 
 
-   @GetMapping("/user/{userId}")
-   public ResponseEntity<List<BidDTO>> getBidsByUser(@PathVariable Long userId) {
-       List<BidDTO> bids = bidService.getBidsByUser(userId)
-                                     .stream()
-                                     .map(BidDTO::new)
-                                     .collect(Collectors.toList());
-       return ResponseEntity.ok(bids);
+   @GetMapping(value = "/item/{itemId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+   public ResponseEntity<SseEmitter> streamBidsByItem(@PathVariable Long itemId) {
+       SseEmitter emitter = auctionStreamService.subscribe(itemId);
+       // No Content tells an EventSource that the auction is over and not to reconnect
+       return emitter == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(emitter);
    }
 
 
 
 
-   @GetMapping("/filter")
-   public ResponseEntity<List<BidDTO>> getAllByFilter(
-           @RequestParam(required = false) Long itemId,
-           @RequestParam(required = false) Long customerId) {
+   @GetMapping("/stream/stats")
+   public ResponseEntity<StreamStatsDTO> getStreamStats(UserPrincipal principal) {
+       return ResponseEntity.ok(auctionStreamService.getStats(principal));
+   }
+
+
 
 
+   @GetMapping("/rules/stats")
+   public ResponseEntity<List<BidRuleStatsDTO>> getRuleStats(UserPrincipal principal) {
+       return ResponseEntity.ok(bidRulePipeline.getStats(principal));
+   }
+
 
 
-       List<BidDTO> bids = bidService.getAllByFilter(itemId, customerId)
-               .stream()
-               .map(BidDTO::new)
-               .collect(Collectors.toList());
 
+   @GetMapping("/user/{userId}")
+   public ResponseEntity<List<BidDTO>> getBidsByUser(
+           @PathVariable Long userId,
+           @RequestParam(required = false) String cursor,
+           @RequestParam(required = false) Integer limit) {
+       return ResponseUtils.buildPageResponse(bidService.getBidsByUser(userId, cursor, limit).map(BidDTO::new));
+   }
 
 
 
-       return ResponseEntity.ok(bids);
+
+   @GetMapping("/filter")
+   public ResponseEntity<List<BidDTO>> getAllByFilter(
+           @RequestParam(required = false) Long itemId,
+           @RequestParam(required = false) Long customerId,
+           @RequestParam(required = false) String cursor,
+           @RequestParam(required = false) Integer limit) {
+       return ResponseUtils.buildPageResponse(bidService.getAllByFilter(itemId, customerId, cursor, limit).map(BidDTO::new));
    }
    
+   /**
+    * Compact bid list: bids reference items by id and each item summary is sent once.
+    */
+   @GetMapping("/compact")
+   public ResponseEntity<SideLoadedPage<BidSummaryDTO>> getCompactBids(
+           @RequestParam(required = false) Long itemId,
+           @RequestParam(required = false) Long customerId,
+           @RequestParam(required = false) String cursor,
+           @RequestParam(required = false) Integer limit) {
+       return ResponseEntity.ok(bidService.getCompactByFilter(itemId, customerId, cursor, limit));
+   }
+
+
    /**
     * Check if a user is the winner of an auction
     */
@@ -121,12 +168,25 @@ public class BidController {
 
 
    @PostMapping
-   public ResponseEntity<BidDTO> placeBid(@RequestBody BidRO bidRO, HttpSession session) {
-       Bid bid = bidService.placeBid(bidRO, session);
+   public ResponseEntity<BidDTO> placeBid(@RequestBody BidRO bidRO, UserPrincipal principal) {
+       Bid bid = bidService.placeBid(bidRO, principal);
        return ResponseEntity.ok(new BidDTO(bid));
    }
 
 
+   @PostMapping("/buy-now")
+   public ResponseEntity<BidDTO> buyNow(@RequestBody BuyNowRO buyNowRO, UserPrincipal principal) {
+       Bid bid = bidService.buyNow(buyNowRO, principal);
+       return ResponseEntity.ok(new BidDTO(bid));
+   }
+
+
+   @PostMapping("/proxy")
+   public ResponseEntity<ProxyBidDTO> placeProxyBid(@RequestBody ProxyBidRO proxyBidRO, UserPrincipal principal) {
+       return ResponseEntity.ok(bidService.placeProxyBid(proxyBidRO, principal));
+   }
+
+
 
 
    @DeleteMapping("/{bidId}")
@@ -0,0 +1,27 @@
+package auction.controllers;
+
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.utils.MessageUtils;
+import auction.entities.utils.ResponseUtils;
+import auction.services.CacheStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getCacheStats(UserPrincipal principal) {
+        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Cache statistics"), cacheStatsService.getStats(principal)
+        ));
+    }
+}
@@ -1,19 +1,19 @@
 package auction.controllers;
 
 import auction.entities.Category;
-import auction.entities.User;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.enums.Role;
 import auction.entities.response.SuccessResponse;
 import auction.entities.utils.MessageUtils;
 import auction.entities.utils.ResponseUtils;
 import auction.services.CategoryService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -25,9 +25,14 @@ public class CategoryController {
     private final CategoryService categoryService;
 
     @GetMapping
-    public ResponseEntity<?> getAllCategories() {
-        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                HttpStatus.OK, MessageUtils.retrieveSuccess("Categories"), categoryService.getAllCategories()
+    public ResponseEntity<?> getAllCategories(WebRequest request) {
+        long version = categoryService.getVersion();
+        String etag = CategoryService.getETag(version);
+        if (request.checkNotModified(etag)) {
+            return ResponseUtils.buildNotModifiedResponse(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ResponseUtils.REVALIDATE).body(ResponseUtils.buildSuccessResponse(
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Categories"), categoryService.getAllCategories(version)
         ));
     }
 
@@ -39,9 +44,8 @@ public class CategoryController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createCategory(@Valid @RequestBody Category category, BindingResult bindingResult, HttpSession session) {
-        User loggedInUser = (User) session.getAttribute("loggedInUser");
-        if (loggedInUser == null || !loggedInUser.getRole().equals(Role.ADMIN)) {
+    public ResponseEntity<?> createCategory(@Valid @RequestBody Category category, BindingResult bindingResult, UserPrincipal principal) {
+        if (principal == null || !principal.hasRole(Role.ADMIN)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ResponseUtils.buildErrorResponse(
                     HttpStatus.FORBIDDEN, "Only admins can create categories"
             ));
@@ -60,9 +64,8 @@ public class CategoryController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateCategory(@PathVariable Long id, @Valid @RequestBody Category category, BindingResult bindingResult, HttpSession session) {
-        User loggedInUser = (User) session.getAttribute("loggedInUser");
-        if (loggedInUser == null || !loggedInUser.getRole().equals(Role.ADMIN)) {
+    public ResponseEntity<?> updateCategory(@PathVariable Long id, @Valid @RequestBody Category category, BindingResult bindingResult, UserPrincipal principal) {
+        if (principal == null || !principal.hasRole(Role.ADMIN)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ResponseUtils.buildErrorResponse(
                     HttpStatus.FORBIDDEN, "Only admins can update categories"
             ));
@@ -0,0 +1,77 @@
+package auction.controllers;
+
+import auction.services.ImageStore;
+import auction.services.ImageVariantService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+public class ImageController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
+
+    /**
+     * Serve a stored image. The hash names the content, so the response can be cached
+     * forever and the hash itself is the ETag.
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> getImage(@PathVariable String hash, WebRequest request) {
+        Path path = imageStore.find(hash).orElse(null);
+        if (path == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(path, "\"" + hash + "\"", IMMUTABLE, request);
+    }
+
+    /**
+     * Serve the variant of the image at the given width. Until the variant has been
+     * made the original is sent instead, with a short cache lifetime so the browser
+     * asks again later.
+     */
+    @GetMapping("/{hash}/{width}")
+    public ResponseEntity<Resource> getImageVariant(@PathVariable String hash, @PathVariable int width, WebRequest request) {
+        if (!ImageVariantService.WIDTHS.contains(width)) {
+            return ResponseEntity.notFound().build();
+        }
+        Path variant = imageStore.findVariant(hash, width).orElse(null);
+        if (variant != null) {
+            return serve(variant, "\"" + hash + "-" + width + "\"", IMMUTABLE, request);
+        }
+        Path original = imageStore.find(hash).orElse(null);
+        if (original == null) {
+            return ResponseEntity.notFound().build();
+        }
+        imageVariantService.generate(hash);
+        return serve(original, "\"" + hash + "\"", CacheControl.maxAge(Duration.ofMinutes(1)), request);
+    }
+
+    private ResponseEntity<Resource> serve(Path path, String etag, CacheControl cacheControl, WebRequest request) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header("X-Content-Type-Options", "nosniff")
+                .contentType(MediaType.parseMediaType(imageStore.contentType(path)))
+                .body(new FileSystemResource(path));
+    }
+}
@@ -2,26 +2,29 @@ package auction.controllers;
 
 
 import auction.entities.DTO.ItemDTO;
-import auction.entities.Item;
+import auction.entities.DTO.ItemSummaryDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.RO.ItemRO;
+import auction.entities.enums.ItemSort;
 import auction.entities.enums.ItemStatus;
+import auction.entities.response.CursorPage;
 import auction.entities.utils.MessageUtils;
 import auction.entities.utils.ResponseUtils;
 import auction.exceptions.ServiceException;
+import auction.repositories.ItemRepository.ETagVersions;
 import auction.services.ItemService;
 import auction.services.CategoryService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 
-import java.util.Base64;
-import java.util.List;
+import java.io.InputStream;
 
 
 @RestController
@@ -35,26 +38,40 @@ public class ItemController {
 
 
     @GetMapping
-    public ResponseEntity<?> getAllItems() {
+    public ResponseEntity<?> getAllItems(
+            @RequestParam(defaultValue = "NEWEST") ItemSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                HttpStatus.OK, MessageUtils.retrieveSuccess("Items"), itemService.getAll()
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Items"), itemService.getAll(sort, cursor, limit)
         ));
     }
 
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getItemById(@PathVariable Long id) {
+    public ResponseEntity<?> getItemById(@PathVariable Long id, WebRequest request) {
         try {
-            // Get item with all relationships loaded
-            Item item = itemService.getItemById(id);
-           
-            // Convert to DTO for proper data transformation
-            ItemDTO itemDTO = new ItemDTO(item);
+            // Answered from the version column alone when the client's copy is current
+            ETagVersions versions = itemService.getETagVersions(id).orElse(null);
+            String etag = versions != null ? ItemService.getETag(id, versions) : null;
+            if (etag != null && request.checkNotModified(etag)) {
+                return ResponseUtils.buildNotModifiedResponse(etag);
+            }
+
+            // Served from the item cache unless the cached copy is older than the tag; loaded
+            // with seller and category on a miss
+            ItemDTO itemDTO = versions != null
+                    ? itemService.getItemDetails(id, versions.getVersion())
+                    : itemService.getItemDetails(id);
            
             // For debugging to check if startingPrice is included
             System.out.println("Returning item with startingPrice: " + itemDTO.getStartingPrice());
            
-            return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (etag != null) {
+                response.eTag(etag).cacheControl(ResponseUtils.REVALIDATE);
+            }
+            return response.body(ResponseUtils.buildSuccessResponse(
                     HttpStatus.OK, MessageUtils.retrieveSuccess("Item"), itemDTO
             ));
         } catch (Exception e) {
@@ -68,7 +85,10 @@ public class ItemController {
     @GetMapping("/filter")
     public ResponseEntity<?> getItemsByFilter(
             @RequestParam(required = false) ItemStatus status,
-            @RequestParam(required = false) Long categoryId) {
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "ENDING_SOONEST") ItemSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
 
         if (categoryId != null && categoryService.getById(categoryId) == null) {
@@ -78,7 +98,7 @@ public class ItemController {
         }
 
 
-        List<Item> items = itemService.getAllByFilter(status, categoryId);
+        CursorPage<ItemSummaryDTO> items = itemService.getAllByFilter(status, categoryId, sort, cursor, limit);
 
 
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
@@ -87,12 +107,34 @@ public class ItemController {
     }
 
 
+    @GetMapping("/facets")
+    public ResponseEntity<?> getItemFacets(
+            @RequestParam(required = false) ItemStatus status,
+            @RequestParam(required = false) Long categoryId) {
+        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Item facets"), itemService.getFacets(status, categoryId)
+        ));
+    }
+
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(
+            @RequestParam String q,
+            @RequestParam(required = false) ItemStatus status,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Items"), itemService.search(q, status, categoryId, limit)
+        ));
+    }
+
+
     @PostMapping(consumes = {"multipart/form-data"})
     public ResponseEntity<?> createItem(
             @Valid @ModelAttribute ItemRO itemRO,
             @RequestParam("image") MultipartFile image,
             BindingResult bindingResult,
-            HttpSession session) {
+            UserPrincipal principal) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
                     HttpStatus.BAD_REQUEST, MessageUtils.validationErrors(bindingResult)
@@ -100,19 +142,15 @@ public class ItemController {
         }
 
 
-        try {
-            if (!image.isEmpty()) {
-                String mimeType = image.getContentType();
-                String base64Image = "data:" + mimeType + ";base64," +
-                        Base64.getEncoder().encodeToString(image.getBytes());
-                itemRO.setImageBase64(base64Image);
-            }
-
-
-            itemService.save(itemRO, session);
+        try (InputStream in = image.isEmpty() ? null : image.getInputStream()) {
+            itemService.save(itemRO, in, principal);
             return ResponseEntity.status(HttpStatus.CREATED).body(ResponseUtils.buildSuccessResponse(
                     HttpStatus.CREATED, MessageUtils.saveSuccess("Item")
             ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
+                    HttpStatus.BAD_REQUEST, e.getMessage()
+            ));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ResponseUtils.buildErrorResponse(
@@ -129,13 +167,13 @@ public class ItemController {
             @PathVariable Long id,
             @Valid @RequestBody ItemRO itemRO,
             BindingResult bindingResult,
-            HttpSession session) {
+            UserPrincipal principal) {
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
                     HttpStatus.BAD_REQUEST, MessageUtils.validationErrors(bindingResult)
             ));
         }
-        itemService.update(id, itemRO, session);
+        itemService.update(id, itemRO, principal);
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
                 HttpStatus.OK, MessageUtils.updateSuccess("Item")
         ));
@@ -147,16 +185,16 @@ public class ItemController {
             @PathVariable Long itemId,
             @RequestParam Long adminId,
             @RequestParam ItemStatus status,
-            HttpSession session) {
-        ItemDTO updatedItem = itemService.updateItemStatus(itemId, adminId, status, session);
+            UserPrincipal principal) {
+        ItemDTO updatedItem = itemService.updateItemStatus(itemId, adminId, status, principal);
         return ResponseEntity.ok(updatedItem);
     }
 
 
     @PutMapping("/auction/status")
-    public ResponseEntity<?> updateAuctionStatus(HttpSession session) {
+    public ResponseEntity<?> updateAuctionStatus(UserPrincipal principal) {
         try {
-            itemService.updateAuctionStatus(session);
+            itemService.updateAuctionStatus(principal);
             return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
                     HttpStatus.OK, "Auction status updated successfully"
             ));
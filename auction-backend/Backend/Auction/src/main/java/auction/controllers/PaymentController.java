@@ -3,11 +3,11 @@ package auction.controllers;
 
 import auction.entities.Payment;
 import auction.entities.DTO.PaymentDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.enums.PaymentStatus;
 import auction.entities.utils.ResponseUtils;
 import auction.exceptions.ServiceException;
 import auction.services.PaymentService;
-import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -33,21 +33,27 @@ public class PaymentController {
 
 
    @GetMapping("/customer/{customerId}")
-   public ResponseEntity<List<PaymentDTO>> getPaymentsByCustomer(@PathVariable Long customerId) {
-       return ResponseEntity.ok(paymentService.getPaymentsByCustomer(customerId));
+   public ResponseEntity<List<PaymentDTO>> getPaymentsByCustomer(
+       @PathVariable Long customerId,
+       @RequestParam(required = false) String cursor,
+       @RequestParam(required = false) Integer limit) {
+       return ResponseUtils.buildPageResponse(paymentService.getPaymentsByCustomer(customerId, null, cursor, limit));
    }
 
 
    @GetMapping("/seller/{sellerId}")
-   public ResponseEntity<List<PaymentDTO>> getPaymentsBySeller(@PathVariable Long sellerId) {
-       return ResponseEntity.ok(paymentService.getPaymentsBySeller(sellerId));
+   public ResponseEntity<List<PaymentDTO>> getPaymentsBySeller(
+       @PathVariable Long sellerId,
+       @RequestParam(required = false) String cursor,
+       @RequestParam(required = false) Integer limit) {
+       return ResponseUtils.buildPageResponse(paymentService.getPaymentsBySeller(sellerId, null, cursor, limit));
    }
 
 
    @PostMapping("/create/{bidId}")
-   public ResponseEntity<?> createPayment(@PathVariable Long bidId, HttpSession session) {
+   public ResponseEntity<?> createPayment(@PathVariable Long bidId, UserPrincipal principal) {
        try {
-           PaymentDTO payment = paymentService.createPayment(bidId, session);
+           PaymentDTO payment = paymentService.createPayment(bidId, principal);
            return ResponseEntity.ok(payment);
        } catch (ServiceException e) {
            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ResponseUtils.buildErrorResponse(
@@ -63,26 +69,41 @@ public class PaymentController {
 
    // New endpoint to get payments by customerId and PaymentStatus
    @GetMapping("/payments/customer/{customerId}")
-   public List<PaymentDTO> getPaymentsByCustomerAndStatus(
+   public ResponseEntity<List<PaymentDTO>> getPaymentsByCustomerAndStatus(
        @PathVariable Long customerId,
-       @RequestParam(required = false) PaymentStatus status) {
-       if (status != null) {
-           return paymentService.getPaymentsByCustomerAndStatus(customerId, status);
-       } else {
-           return paymentService.getPaymentsByCustomer(customerId); // Returns all payments
-       }
+       @RequestParam(required = false) PaymentStatus status,
+       @RequestParam(required = false) String cursor,
+       @RequestParam(required = false) Integer limit) {
+       // Without a status this returns all payments
+       return ResponseUtils.buildPageResponse(paymentService.getPaymentsByCustomer(customerId, status, cursor, limit));
    }
   
    // New endpoint to get payments by sellerId and PaymentStatus
    @GetMapping("/payments/seller/{sellerId}")
-   public List<PaymentDTO> getPaymentsBySellerAndStatus(
+   public ResponseEntity<List<PaymentDTO>> getPaymentsBySellerAndStatus(
        @PathVariable Long sellerId,
-       @RequestParam(required = false) PaymentStatus status) {
-       if (status != null) {
-           return paymentService.getPaymentsBySellerAndStatus(sellerId, status);
-       } else {
-           return paymentService.getPaymentsBySeller(sellerId); // Returns all payments
+       @RequestParam(required = false) PaymentStatus status,
+       @RequestParam(required = false) String cursor,
+       @RequestParam(required = false) Integer limit) {
+       // Without a status this returns all payments
+       return ResponseUtils.buildPageResponse(paymentService.getPaymentsBySeller(sellerId, status, cursor, limit));
+   }
+
+
+   // Compact payment list for a customer or a seller: items are referenced by id and sent once
+   @GetMapping("/compact")
+   public ResponseEntity<?> getCompactPayments(
+       @RequestParam(required = false) Long customerId,
+       @RequestParam(required = false) Long sellerId,
+       @RequestParam(required = false) PaymentStatus status,
+       @RequestParam(required = false) String cursor,
+       @RequestParam(required = false) Integer limit) {
+       if (customerId == null && sellerId == null) {
+           return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
+                   HttpStatus.BAD_REQUEST, "Either customerId or sellerId is required"
+           ));
        }
+       return ResponseEntity.ok(paymentService.getCompactPayments(customerId, sellerId, status, cursor, limit));
    }
 
 
@@ -6,11 +6,11 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 
 import auction.entities.User;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.enums.ApplicationStatus;
 import auction.entities.enums.Role;
 import auction.exceptions.ServiceException;
 import auction.repositories.UserRepository;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -72,11 +72,11 @@ public class SellerApplicationController {
 
     @PostMapping
     public ResponseEntity<SellerApplication> createApplication(
-            @RequestBody SellerApplicationRO applicationRO, HttpSession session) {
+            @RequestBody SellerApplicationRO applicationRO, UserPrincipal principal) {
 
         try {
-            // Pass session to the service layer to check if the user is logged in
-            SellerApplication createdApplication = sellerApplicationService.createApplication(applicationRO, session);
+            // Pass the caller to the service layer to check if the user is logged in
+            SellerApplication createdApplication = sellerApplicationService.createApplication(applicationRO, principal);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdApplication);
         } catch (ServiceException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
@@ -86,7 +86,7 @@ public class SellerApplicationController {
     // New endpoint to handle frontend format with user_id and description
     @PostMapping("/simple")
     public ResponseEntity<?> createSimpleApplication(
-            @RequestBody Map<String, Object> payload, HttpSession session) {
+            @RequestBody Map<String, Object> payload) {
 
         try {
             Long userId = Long.valueOf(payload.get("user_id").toString());
@@ -102,8 +102,8 @@ public class SellerApplicationController {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            // Store user in session for verification
-            session.setAttribute("loggedInUser", user);
+            // Apply on behalf of the user named in the request
+            UserPrincipal applicant = new UserPrincipal(user.getId(), user.getRole());
             
             // Create application data
             SellerApplicationRO applicationRO = new SellerApplicationRO();
@@ -116,7 +116,7 @@ public class SellerApplicationController {
             applicationRO.setAppliedAt(LocalDateTime.now());
             
             // Create the application
-            SellerApplication createdApplication = sellerApplicationService.createApplication(applicationRO, session);
+            SellerApplication createdApplication = sellerApplicationService.createApplication(applicationRO, applicant);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdApplication);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -129,17 +129,16 @@ public class SellerApplicationController {
             @PathVariable Long id,
             @RequestParam String status,
             @RequestParam Long adminId,
-            HttpSession session) {
+            UserPrincipal principal) {
 
         try {
             // Verify admin
-            User loggedInUser = (User) session.getAttribute("loggedInUser");
-            if (loggedInUser == null || !loggedInUser.getRole().equals(Role.ADMIN)) {
+            if (principal == null || !principal.hasRole(Role.ADMIN)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
             }
 
             // Verify adminId matches logged in admin
-            if (!loggedInUser.getId().equals(adminId)) {
+            if (!principal.getId().equals(adminId)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
             }
 
@@ -1,6 +1,7 @@
 package auction.controllers;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,12 +15,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import auction.entities.RO.UserRO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.User;
 import auction.entities.enums.Role;
 import auction.entities.utils.MessageUtils;
 import auction.entities.utils.ResponseUtils;
+import auction.exceptions.ServiceException;
 import auction.services.UserService;
-import jakarta.servlet.http.HttpSession;
+import auction.services.TokenService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -29,23 +32,27 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
+    private final TokenService tokenService;
 
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                HttpStatus.OK, MessageUtils.retrieveSuccess("Users"), userService.getAll()
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Users"), userService.getAll(cursor, limit)
         ));
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<?> getUsersByRole(@RequestParam(required = false) Role role) {
+    public ResponseEntity<?> getUsersByRole(@RequestParam(required = false) Role role,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
         if (role == null) {
             return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
                     HttpStatus.BAD_REQUEST, MessageUtils.invalidRequest("Role")
             ));
         }
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                HttpStatus.OK, MessageUtils.retrieveSuccess("Users"), userService.getAllByFilter(role)
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Users"), userService.getAllByFilter(role, cursor, limit)
         ));
     }
 
@@ -72,8 +79,7 @@ public class UserController {
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateUser(@PathVariable Long id, 
                                         @Valid @RequestBody UserRO userRO, 
-                                        BindingResult bindingResult, 
-                                        HttpSession session) {
+                                        BindingResult bindingResult) {
                                             
         if (bindingResult.hasErrors()) {
             return ResponseEntity.badRequest().body(ResponseUtils.buildErrorResponse(
@@ -81,8 +87,6 @@ public class UserController {
             ));
         }
 
-        User loggedInUser = (User) session.getAttribute("loggedInUser");
-
         userService.update(id, userRO);
         return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
                 HttpStatus.OK, MessageUtils.updateSuccess("User")
@@ -98,27 +102,39 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody UserRO userRO, HttpSession session) {
-        return userService.login(userRO.getUsername(), userRO.getPassword(), session);
+    public ResponseEntity<?> loginUser(@RequestBody UserRO userRO) {
+        return userService.login(userRO.getUsername(), userRO.getPassword());
     }
 
     @GetMapping("/current")
-    public ResponseEntity<?> getCurrentUser(HttpSession session) {
-        User loggedInUser = (User) session.getAttribute("loggedInUser");
-        if (loggedInUser != null) {
-            return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                    HttpStatus.OK, MessageUtils.retrieveSuccess("Current user"), loggedInUser
-            ));
-        } else {
+    public ResponseEntity<?> getCurrentUser(UserPrincipal principal) {
+        User loggedInUser = null;
+        if (principal != null) {
+            try {
+                loggedInUser = userService.getUserById(principal.getId());
+            } catch (ServiceException e) {
+                // The account was deleted after the token was issued.
+            }
+        }
+        if (loggedInUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseUtils.buildErrorResponse(
                     HttpStatus.UNAUTHORIZED, "No user is currently logged in"
             ));
         }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        // The token still carries the role from login; hand out a fresh one when it changed, e.g. after a seller approval.
+        if (!principal.hasRole(loggedInUser.getRole())) {
+            String token = tokenService.issue(loggedInUser.getId(), loggedInUser.getRole());
+            response.header(HttpHeaders.SET_COOKIE, tokenService.cookie(token).toString());
+        }
+        return response.body(ResponseUtils.buildSuccessResponse(
+                HttpStatus.OK, MessageUtils.retrieveSuccess("Current user"), loggedInUser
+        ));
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpSession session) {
-        session.invalidate();
-        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(HttpStatus.OK, "Logged out successfully"));
+    public ResponseEntity<?> logout() {
+        return userService.logout();
     }
 }
\ No newline at end of file
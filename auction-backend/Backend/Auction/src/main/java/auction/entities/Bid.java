@@ -11,30 +11,49 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "bids")
+@Table(name = "bids", indexes = {
+        @Index(name = "idx_bids_item_amount", columnList = "item_id, bid_amount"),
+        @Index(name = "idx_bids_customer_time", columnList = "customer_id, bid_time")
+})
+@NamedEntityGraph(name = Bid.WITH_ITEM_AND_USERS, attributeNodes = {
+        @NamedAttributeNode(value = "item", subgraph = "item"),
+        @NamedAttributeNode("customer"),
+        @NamedAttributeNode("seller")
+}, subgraphs = @NamedSubgraph(name = "item", attributeNodes = {
+        @NamedAttributeNode("seller"),
+        @NamedAttributeNode("category")
+}))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Bid {
+
+    // Everything BidDTO reads, loaded with the bid in one select
+    public static final String WITH_ITEM_AND_USERS = "Bid.withItemAndUsers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids come from a pooled table generator, so inserts can be sent as JDBC batches;
+    // IDENTITY needs the generated key of every row back before the next one is written.
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bids")
+    @TableGenerator(name = "bids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "bids", allocationSize = 50)
     @Column(name = "bid_id")
     private Long id;
 
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", nullable = false)
     private Item item;
 
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private User customer;
 
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id", nullable = false)
     private User seller;
 
@@ -51,10 +70,6 @@ public class Bid {
     private BigDecimal finalPrice;
 
 
-    @Column(name = "image_base64", columnDefinition = "LONGTEXT")
-    private String imageBase64;
-
-
     @PrePersist
     protected void onCreate() {
         if (bidTime == null) {
@@ -69,6 +84,5 @@ public class Bid {
         this.seller = item.getSeller();
         this.bidAmount = bidRO.getBidAmount();
         this.bidTime = LocalDateTime.now();
-        this.imageBase64 = bidRO.getImageBase64();
     }
 }
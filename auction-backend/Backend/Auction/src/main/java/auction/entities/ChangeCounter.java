@@ -0,0 +1,28 @@
+package auction.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Moves forward with every change to a set of rows that has no version column, e.g. the
+ * category list. ETags are derived from it instead of from anything held by one node.
+ */
+@Entity
+@Table(name = "change_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeCounter {
+
+    public static final String CATEGORIES = "categories";
+    // The category and seller names shown with every item
+    public static final String ITEM_LABELS = "item-labels";
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long version;
+}
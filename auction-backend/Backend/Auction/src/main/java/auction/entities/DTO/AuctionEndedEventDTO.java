@@ -0,0 +1,23 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to everyone watching an auction when it has ended and been settled.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionEndedEventDTO {
+    private Long itemId;
+    private boolean sold;
+    private BigDecimal winningAmount;
+    private LocalDateTime endedAt;
+}
@@ -0,0 +1,20 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to everyone watching an auction when a late bid moved its end back.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuctionExtendedEventDTO {
+    private Long itemId;
+    private LocalDateTime endTime;
+}
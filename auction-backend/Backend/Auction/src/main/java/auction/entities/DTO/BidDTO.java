@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 
 
 import auction.entities.Bid;
+import auction.entities.utils.ImageUtils;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -30,7 +31,7 @@ public class BidDTO {
     private LocalDateTime bidTime;
     private String transactionId;
     private BigDecimal finalPrice;
-    private String imageBase64;
+    private String imageUrl;
 
 
 
@@ -44,6 +45,6 @@ public class BidDTO {
     this.bidTime = bid.getBidTime();
     this.transactionId = "TRX-" + String.format("%03d", bid.getId());
     this.finalPrice = bid.getFinalPrice();
-    this.imageBase64 = bid.getImageBase64();
+    this.imageUrl = ImageUtils.url(bid.getItem().getImageHash(), ImageUtils.SMALL);
    }
 }
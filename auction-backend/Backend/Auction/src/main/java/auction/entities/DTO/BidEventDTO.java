@@ -0,0 +1,24 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pushed to everyone watching an auction when a bid is accepted.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BidEventDTO {
+    private Long itemId;
+    private BigDecimal amount;
+    private String bidderUsername;
+    private LocalDateTime bidTime;
+    private BigDecimal minNextBid;
+}
@@ -0,0 +1,23 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How often a bid rule ran, how often it rejected a bid and how long it took.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BidRuleStatsDTO {
+    private String name;
+    private String stage;
+    private String cost;
+    private long evaluations;
+    private long rejections;
+    private double averageMicros;
+    private double maxMicros;
+}
@@ -0,0 +1,28 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compact bid shape for lists. The item is only referenced by id; its summary is
+ * sent once per response in the side-loaded items map.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BidSummaryDTO {
+    private Long id;
+    private Long itemId;
+    private Long customerId;
+    private String customerUsername;
+    private Long sellerId;
+    private BigDecimal bidAmount;
+    private LocalDateTime bidTime;
+    private BigDecimal finalPrice;
+}
@@ -0,0 +1,25 @@
+package auction.entities.DTO;
+
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.PriceBand;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Item counts of the catalog per facet. Each facet is narrowed by the filters on the
+ * other facets but not by its own, so a dashboard can show what picking another value
+ * would give; {@code total} applies every filter.
+ */
+@Getter
+@AllArgsConstructor
+public class FacetCountsDTO {
+
+    private final long total;
+    private final Map<Long, Long> categories;
+    private final Map<ItemStatus, Long> statuses;
+    private final Map<AuctionStatus, Long> auctionStatuses;
+    private final Map<PriceBand, Long> priceBands;
+}
@@ -4,6 +4,8 @@ package auction.entities.DTO;
 import auction.entities.Item;
 import auction.entities.enums.AuctionStatus;
 import auction.entities.enums.ItemStatus;
+import auction.entities.utils.ImageUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
@@ -38,11 +40,20 @@ public class ItemDTO implements Serializable {
     }
    
     private BigDecimal bidIncrement;
+    private BigDecimal buyNowPrice;
+    // The reserve itself stays hidden; bidders only learn whether it has been reached.
+    private Boolean reserveMet;
     private ItemStatus status;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private AuctionStatus auctionStatus;
-    private String imageBase64;
+    private String imageUrl;
+    private String imageSrcSet;
+
+    // Current bidding state
+    private BigDecimal currentPrice;
+    private Integer bidCount;
+    private Long leadingBidderId;
    
     // Seller information
     private Long sellerId;
@@ -53,6 +64,10 @@ public class ItemDTO implements Serializable {
     private Long categoryId;
     private String categoryName;
 
+    // The row version this copy was made from, for the ETag; not part of the response
+    @JsonIgnore
+    private Long version;
+
 
     public ItemDTO(Item item) {
         this.id = item.getId();
@@ -60,11 +75,21 @@ public class ItemDTO implements Serializable {
         this.description = item.getDescription();
         this.startingPrice = item.getStartingPrice();
         this.bidIncrement = item.getBidIncrement();
+        this.buyNowPrice = item.getBuyNowPrice();
+        if (item.getReservePrice() != null) {
+            this.reserveMet = item.getBidCount() != null && item.getBidCount() > 0
+                    && item.getCurrentPrice() != null && item.getCurrentPrice().compareTo(item.getReservePrice()) >= 0;
+        }
         this.status = item.getStatus();
         this.startTime = item.getStartTime();
         this.endTime = item.getEndTime();
         this.auctionStatus = item.getAuctionStatus();
-        this.imageBase64 = item.getImageBase64();
+        this.imageUrl = ImageUtils.url(item.getImageHash());
+        this.imageSrcSet = ImageUtils.srcSet(item.getImageHash());
+        this.currentPrice = item.getCurrentPrice();
+        this.bidCount = item.getBidCount();
+        this.leadingBidderId = item.getLeadingBidderId();
+        this.version = item.getVersion();
        
         // Set seller information if available
         if (item.getSeller() != null) {
@@ -0,0 +1,28 @@
+package auction.entities.DTO;
+
+import auction.entities.Item;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of an item the catalog facets count by.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemFacetRow {
+
+    private final Long id;
+    private final Long categoryId;
+    private final ItemStatus status;
+    private final AuctionStatus auctionStatus;
+    private final BigDecimal currentPrice;
+
+    public ItemFacetRow(Item item) {
+        this(item.getId(), item.getCategory() != null ? item.getCategory().getId() : null,
+                item.getStatus(), item.getAuctionStatus(), item.getCurrentPrice());
+    }
+}
@@ -0,0 +1,28 @@
+package auction.entities.DTO;
+
+import auction.entities.Item;
+import auction.entities.enums.ItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The searchable text of an item and the fields search results can be filtered on.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSearchRow {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Long categoryId;
+    private final String categoryName;
+    private final ItemStatus status;
+
+    public ItemSearchRow(Item item) {
+        this(item.getId(), item.getName(), item.getDescription(),
+                item.getCategory() != null ? item.getCategory().getId() : null,
+                item.getCategory() != null ? item.getCategory().getName() : null,
+                item.getStatus());
+    }
+}
@@ -0,0 +1,67 @@
+package auction.entities.DTO;
+
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.utils.ImageUtils;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Slim item shape for catalog lists. It is selected directly by the
+ * ItemRepository summary queries, so the description, image and user rows
+ * are never loaded for list views.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemSummaryDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private Long categoryId;
+    private String categoryName;
+    private Long sellerId;
+    private String sellerName;
+    private BigDecimal startingPrice;
+    private BigDecimal currentPrice;
+    private Integer bidCount;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private ItemStatus status;
+    private AuctionStatus auctionStatus;
+    private String thumbnailUrl;
+    private String imageSrcSet;
+
+    public ItemSummaryDTO(Long id, String name, Long categoryId, String categoryName,
+                          Long sellerId, String sellerUsername, String sellerFirstName, String sellerLastName,
+                          BigDecimal startingPrice, BigDecimal currentPrice, Integer bidCount,
+                          LocalDateTime startTime, LocalDateTime endTime,
+                          ItemStatus status, AuctionStatus auctionStatus, String imageHash) {
+        this.id = id;
+        this.name = name;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.sellerId = sellerId;
+        this.sellerName = sellerFirstName != null && sellerLastName != null
+                ? sellerFirstName + " " + sellerLastName
+                : sellerUsername;
+        this.startingPrice = startingPrice;
+        this.currentPrice = currentPrice;
+        this.bidCount = bidCount;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+        this.auctionStatus = auctionStatus;
+        this.thumbnailUrl = ImageUtils.url(imageHash, ImageUtils.MEDIUM);
+        this.imageSrcSet = ImageUtils.srcSet(imageHash);
+    }
+}
@@ -0,0 +1,28 @@
+package auction.entities.DTO;
+
+import auction.entities.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compact payment shape for lists, referencing its bid and item by id.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSummaryDTO {
+    private Long id;
+    private Long bidId;
+    private Long itemId;
+    private Long customerId;
+    private Long sellerId;
+    private BigDecimal amount;
+    private PaymentStatus paymentStatus;
+    private LocalDateTime transactionTime;
+}
@@ -0,0 +1,19 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * A customer's own proxy bid and where the auction stands after it was resolved.
+ * Only ever sent to that customer, since it carries the hidden maximum.
+ */
+@Getter
+@AllArgsConstructor
+public class ProxyBidDTO {
+    private Long itemId;
+    private BigDecimal maxAmount;
+    private BigDecimal currentPrice;
+    private boolean leading;
+}
@@ -0,0 +1,33 @@
+package auction.entities.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Subscriber counts and delivery backlog of the live auction streams.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamStatsDTO {
+    private int subscribers;
+    private int queuedFrames;
+    private long droppedFrames;
+    private long droppedSubscribers;
+    private List<ItemStreamStats> items;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemStreamStats {
+        private Long itemId;
+        private int subscribers;
+        private int queuedFrames;
+    }
+}
@@ -0,0 +1,29 @@
+package auction.entities.DTO;
+
+import auction.entities.User;
+import auction.entities.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * The part of a user that bids and permission checks need. Small and immutable,
+ * so it can be cached and shared between requests.
+ */
+@Getter
+@AllArgsConstructor
+public class UserIdentityDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final Role role;
+
+    public UserIdentityDTO(User user) {
+        this(user.getId(), user.getUsername(), user.getRole());
+    }
+}
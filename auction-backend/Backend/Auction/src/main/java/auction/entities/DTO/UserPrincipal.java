@@ -0,0 +1,24 @@
+package auction.entities.DTO;
+
+import auction.entities.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The caller of a request, as read from its signed token: only who they are and what
+ * they may do. Controllers get it as a method parameter, which is null for anonymous
+ * requests.
+ */
+@Getter
+@AllArgsConstructor
+public class UserPrincipal {
+
+    public static final String ATTRIBUTE = UserPrincipal.class.getName();
+
+    private final Long id;
+    private final Role role;
+
+    public boolean hasRole(Role role) {
+        return this.role == role;
+    }
+}
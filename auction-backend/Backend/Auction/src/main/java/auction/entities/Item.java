@@ -19,19 +19,24 @@ import java.util.Set;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_status_category", columnList = "status, category_id"),
+        @Index(name = "idx_items_auction_end", columnList = "auction_status, end_time")
+})
 public class Item {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "items")
+    @TableGenerator(name = "items", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "items", allocationSize = 50)
     @Column(name = "item_id", columnDefinition = "BIGINT")
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id", nullable = false)
     private User seller;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
@@ -47,6 +52,14 @@ public class Item {
     @Column(name = "bid_increment", nullable = false, precision = 10, scale = 2)
     private BigDecimal bidIncrement = BigDecimal.valueOf(1.00);
 
+    // Ends the auction at once for whoever pays it; null when the item has none
+    @Column(name = "buy_now_price", precision = 10, scale = 2)
+    private BigDecimal buyNowPrice;
+
+    // Never shown to bidders; below it the auction ends unsold
+    @Column(name = "reserve_price", precision = 10, scale = 2)
+    private BigDecimal reservePrice;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private ItemStatus status = ItemStatus.PENDING;
@@ -54,7 +67,7 @@ public class Item {
     @Column(name = "approved_at")
     private LocalDateTime approvedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "admin_id")
     private User admin;
 
@@ -72,19 +85,40 @@ public class Item {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
-    @Column(name = "image_base64", columnDefinition = "LONGTEXT")
-    private String imageBase64;
+    // SHA-256 of the image in the ImageStore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    // Denormalized from the bids table and kept in step by BidService.placeBid,
+    // so listing and detail views do not have to read the bid history.
+    @Column(name = "current_price", precision = 10, scale = 2)
+    private BigDecimal currentPrice;
+
+    @Builder.Default
+    @Column(name = "bid_count", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private Integer bidCount = 0;
+
+    @Column(name = "leading_bidder_id")
+    private Long leadingBidderId;
+
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
 
     public void updateFromRO(ItemRO itemRO) {
         this.name = itemRO.getName();
         this.description = itemRO.getDescription();
         this.startingPrice = itemRO.getStartingPrice();
         this.bidIncrement = itemRO.getBidIncrement();
+        this.buyNowPrice = itemRO.getBuyNowPrice();
+        this.reservePrice = itemRO.getReservePrice();
         this.status = itemRO.getStatus();
         this.startTime = itemRO.getStartTime();
         this.endTime = itemRO.getEndTime();
         this.auctionStatus = itemRO.getAuctionStatus();
-        this.imageBase64 = itemRO.getImageBase64();
+        if (itemRO.getImageHash() != null) {
+            this.imageHash = itemRO.getImageHash();
+        }
         this.createdAt = itemRO.getCreatedAt();
     }
 }
@@ -10,6 +10,19 @@ import auction.entities.enums.PaymentStatus;
 
 @Entity
 @Table(name = "payments")
+@NamedEntityGraph(name = Payment.WITH_BID_DETAILS, attributeNodes = {
+        @NamedAttributeNode(value = "bid", subgraph = "bid")
+}, subgraphs = {
+        @NamedSubgraph(name = "bid", attributeNodes = {
+                @NamedAttributeNode(value = "item", subgraph = "item"),
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode("seller")
+        }),
+        @NamedSubgraph(name = "item", attributeNodes = {
+                @NamedAttributeNode("seller"),
+                @NamedAttributeNode("category")
+        })
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,20 +30,25 @@ import auction.entities.enums.PaymentStatus;
 @Builder
 public class Payment {
 
+    // Everything PaymentDTO reads, loaded with the payment in one select
+    public static final String WITH_BID_DETAILS = "Payment.withBidDetails";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payments")
+    @TableGenerator(name = "payments", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "payments", allocationSize = 50)
     @Column(name = "payment_id")
     private Long id;
 
-    @OneToOne(optional = false)
+    @OneToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "bid_id", nullable = false)
     private Bid bid;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private User customer;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id", nullable = false)
     private User seller;
 
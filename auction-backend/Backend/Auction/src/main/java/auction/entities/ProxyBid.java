@@ -0,0 +1,42 @@
+package auction.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A customer's hidden maximum for an item. The engine bids for the customer, one
+ * increment at a time in effect, until the maximum is reached.
+ */
+@Entity
+@Table(name = "proxy_bids", uniqueConstraints = @UniqueConstraint(
+        name = "uk_proxy_bids_item_customer", columnNames = {"item_id", "customer_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProxyBid {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "proxy_bid_id")
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private User customer;
+
+    @Column(name = "max_amount", nullable = false)
+    private BigDecimal maxAmount;
+
+    // When the current maximum was set; the earlier of two equal maximums wins
+    @Column(name = "placed_at", nullable = false)
+    private LocalDateTime placedAt;
+}
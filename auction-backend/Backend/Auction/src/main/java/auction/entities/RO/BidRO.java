@@ -18,7 +18,6 @@ public class BidRO {
     private UserRO customer;  // ✅ Updated "user" to "customer"
     private Long itemId;
     private Long customerId;  // ✅ Updated "userId" to "customerId"
-    private String imageBase64;  // Added field for image data
 
 
     public auction.entities.Bid toEntity(auction.entities.Item item, auction.entities.User customer) {
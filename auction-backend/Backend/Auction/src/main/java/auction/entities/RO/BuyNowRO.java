@@ -0,0 +1,13 @@
+package auction.entities.RO;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BuyNowRO {
+    private Long itemId;
+    private Long customerId;
+}
@@ -28,10 +28,12 @@ public class ItemRO {
     private String description;
     private BigDecimal startingPrice;
     private BigDecimal bidIncrement;
+    private BigDecimal buyNowPrice;
+    private BigDecimal reservePrice;
     private ItemStatus status;
     private Long categoryId;
     private Long sellerId;
-    private String imageBase64;
+    private String imageHash;
 
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
@@ -47,11 +49,13 @@ public class ItemRO {
 
     public Item toEntity(User seller, Category category) {
         Item item = Item.builder()
-                .imageBase64(this.imageBase64)
+                .imageHash(this.imageHash)
                 .name(this.name)
                 .description(this.description)
                 .startingPrice(this.startingPrice != null ? this.startingPrice : BigDecimal.ZERO)
                 .bidIncrement(this.bidIncrement != null ? this.bidIncrement : BigDecimal.ZERO)
+                .buyNowPrice(this.buyNowPrice)
+                .reservePrice(this.reservePrice)
                 .seller(seller)
                 .category(category)
                 .startTime(this.startTime)
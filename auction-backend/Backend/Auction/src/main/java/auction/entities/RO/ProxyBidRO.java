@@ -0,0 +1,16 @@
+package auction.entities.RO;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyBidRO {
+    private Long itemId;
+    private Long customerId;
+    private BigDecimal maxAmount;
+}
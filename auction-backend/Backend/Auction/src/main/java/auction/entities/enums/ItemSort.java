@@ -0,0 +1,7 @@
+package auction.entities.enums;
+
+public enum ItemSort {
+    ENDING_SOONEST,
+    NEWEST,
+    HIGHEST_PRICE
+}
@@ -0,0 +1,39 @@
+package auction.entities.enums;
+
+import java.math.BigDecimal;
+
+/**
+ * Current-price ranges used by the catalog facets. Each band runs from its lower bound
+ * up to the next band's.
+ */
+public enum PriceBand {
+    UNDER_50(0),
+    FROM_50(50),
+    FROM_100(100),
+    FROM_500(500),
+    FROM_1000(1000),
+    FROM_5000(5000);
+
+    private final BigDecimal lowerBound;
+
+    PriceBand(long lowerBound) {
+        this.lowerBound = BigDecimal.valueOf(lowerBound);
+    }
+
+    public BigDecimal getLowerBound() {
+        return lowerBound;
+    }
+
+    public static PriceBand of(BigDecimal price) {
+        PriceBand[] bands = values();
+        if (price == null) {
+            return bands[0];
+        }
+        for (int i = bands.length - 1; i > 0; i--) {
+            if (price.compareTo(bands[i].lowerBound) >= 0) {
+                return bands[i];
+            }
+        }
+        return bands[0];
+    }
+}
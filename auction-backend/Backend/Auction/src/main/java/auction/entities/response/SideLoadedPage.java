@@ -0,0 +1,42 @@
+package auction.entities.response;
+
+import auction.entities.DTO.ItemSummaryDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A page of rows that reference items by id, together with the summary of every
+ * referenced item, each sent once. The payload grows with the number of distinct
+ * items on the page rather than the number of rows.
+ */
+@Getter
+@AllArgsConstructor
+public class SideLoadedPage<T> {
+
+    private final List<T> data;
+    private final Map<Long, ItemSummaryDTO> items;
+    private final String nextCursor;
+
+    public static <T> SideLoadedPage<T> of(CursorPage<T> page, Function<T, Long> itemIdOf,
+                                           Function<Collection<Long>, List<ItemSummaryDTO>> loadItems) {
+        Set<Long> itemIds = new LinkedHashSet<>();
+        for (T row : page.getItems()) {
+            itemIds.add(itemIdOf.apply(row));
+        }
+        Map<Long, ItemSummaryDTO> items = new LinkedHashMap<>();
+        if (!itemIds.isEmpty()) {
+            for (ItemSummaryDTO item : loadItems.apply(itemIds)) {
+                items.put(item.getId(), item);
+            }
+        }
+        return new SideLoadedPage<>(page.getItems(), items, page.getNextCursor());
+    }
+}
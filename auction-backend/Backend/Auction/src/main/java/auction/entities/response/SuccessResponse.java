@@ -18,6 +18,7 @@ public class SuccessResponse<T> {
     private final boolean status = true;
     private int statusCode;
     private String message;
+    private String nextCursor;
 
 
 }
\ No newline at end of file
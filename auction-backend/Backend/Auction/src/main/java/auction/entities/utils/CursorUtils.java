@@ -0,0 +1,60 @@
+package auction.entities.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Builds and reads the opaque cursors used for keyset pagination. A cursor holds
+ * the sort it belongs to and the sort key of the last row of the previous page.
+ */
+public class CursorUtils {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String SEPARATOR = "|";
+
+    public static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    public static String encode(String sort, Object... keys) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        joiner.add(sort);
+        for (Object key : keys) {
+            joiner.add(String.valueOf(key));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the sort keys stored in the cursor, or null for the first page.
+     */
+    public static String[] decode(String cursor, String sort, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", -1);
+            if (parts.length != keyCount + 1 || !parts[0].equals(sort)) {
+                throw new IllegalArgumentException(MessageUtils.invalidRequest("cursor"));
+            }
+            String[] keys = new String[keyCount];
+            System.arraycopy(parts, 1, keys, 0, keyCount);
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(MessageUtils.invalidRequest("cursor"), e);
+        }
+    }
+
+    public static Long decodeId(String cursor, String sort) {
+        String[] keys = decode(cursor, sort, 1);
+        return keys == null ? null : Long.valueOf(keys[0]);
+    }
+}
@@ -0,0 +1,35 @@
+package auction.entities.utils;
+
+import java.util.StringJoiner;
+
+public class ImageUtils {
+
+    public static final String IMAGES_PATH = "/api/images/";
+
+    // Widths of the downscaled variants made by ImageVariantService
+    public static final int SMALL = 200;
+    public static final int MEDIUM = 600;
+    public static final int LARGE = 1200;
+
+    public static String url(String hash) {
+        return hash == null ? null : IMAGES_PATH + hash;
+    }
+
+    public static String url(String hash, int width) {
+        return hash == null ? null : IMAGES_PATH + hash + "/" + width;
+    }
+
+    /**
+     * An {@code srcset} value listing every variant, so the browser can pick the size it needs.
+     */
+    public static String srcSet(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int width : new int[]{SMALL, MEDIUM, LARGE}) {
+            joiner.add(url(hash, width) + " " + width + "w");
+        }
+        return joiner.toString();
+    }
+}
@@ -1,11 +1,21 @@
 package auction.entities.utils;
 
+import auction.entities.response.CursorPage;
 import auction.entities.response.ErrorResponse;
 import auction.entities.response.SuccessResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
 
 public class ResponseUtils {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Clients may keep the response but have to check the ETag before reusing it.
+    public static final CacheControl REVALIDATE = CacheControl.noCache();
+
     public static <T> SuccessResponse<T> buildSuccessResponse(HttpStatus status, String message) {
         SuccessResponse<T> response = new SuccessResponse<>();
         response.setStatusCode(status.value());
@@ -23,6 +33,36 @@ public class ResponseUtils {
         return response;
     }
 
+    public static <T> SuccessResponse<List<T>> buildSuccessResponse(HttpStatus status, String message, CursorPage<T> page) {
+        SuccessResponse<List<T>> response = buildSuccessResponse(status, message, page.getItems());
+        response.setNextCursor(page.getNextCursor());
+
+        return response;
+    }
+
+    /**
+     * For endpoints that return a bare list: the page is the body and the cursor goes in a header.
+     */
+    public static <T> ResponseEntity<List<T>> buildPageResponse(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+
+    public static <T> ResponseEntity<List<T>> buildPageResponse(CursorPage<T> page, String etag) {
+        ResponseEntity<List<T>> response = buildPageResponse(page);
+        if (etag == null) {
+            return response;
+        }
+        return ResponseEntity.ok().headers(response.getHeaders()).eTag(etag).cacheControl(REVALIDATE).body(response.getBody());
+    }
+
+    public static <T> ResponseEntity<T> buildNotModifiedResponse(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
     public static ErrorResponse buildErrorResponse(HttpStatus status, String message) {
         ErrorResponse response = new ErrorResponse();
         response.setStatusCode(status.value());
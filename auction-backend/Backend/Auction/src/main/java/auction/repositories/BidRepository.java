@@ -1,19 +1,32 @@
 package auction.repositories;
 
 import auction.entities.Bid;
+import auction.entities.DTO.BidSummaryDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface BidRepository extends JpaRepository<Bid, Long> {
 
+    @EntityGraph(Bid.WITH_ITEM_AND_USERS)
     List<Bid> findByItemId(Long itemId);
 
+    @EntityGraph(Bid.WITH_ITEM_AND_USERS)
     List<Bid> findByCustomerId(Long customerId);
 
+    Optional<Bid> findFirstByItemIdOrderByBidAmountDescIdAsc(Long itemId);
+
+    long countByItemId(Long itemId);
+
     // ✅ Custom Query for Filtering by Item and Customer
+    @EntityGraph(Bid.WITH_ITEM_AND_USERS)
     @Query("SELECT b FROM Bid b WHERE " +
             "(:itemId IS NULL OR b.item.id = :itemId) AND " +
             "(:customerId IS NULL OR b.customer.id = :customerId)")
@@ -21,4 +34,48 @@ public interface BidRepository extends JpaRepository<Bid, Long> {
             @Param("itemId") Long itemId,
             @Param("customerId") Long customerId
     );
+
+    // Newest first, continuing below the id of the previous page's last bid
+    @EntityGraph(Bid.WITH_ITEM_AND_USERS)
+    @Query("SELECT b FROM Bid b WHERE " +
+            "(:itemId IS NULL OR b.item.id = :itemId) AND " +
+            "(:customerId IS NULL OR b.customer.id = :customerId) AND " +
+            "(:beforeId IS NULL OR b.id < :beforeId) " +
+            "ORDER BY b.id DESC")
+    List<Bid> findPageByFilter(
+            @Param("itemId") Long itemId,
+            @Param("customerId") Long customerId,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    // Same page as findPageByFilter, as compact rows that reference the item by id
+    @Query("SELECT new auction.entities.DTO.BidSummaryDTO(b.id, b.item.id, c.id, c.username, b.seller.id, " +
+            "b.bidAmount, b.bidTime, b.finalPrice) FROM Bid b JOIN b.customer c WHERE " +
+            "(:itemId IS NULL OR b.item.id = :itemId) AND " +
+            "(:customerId IS NULL OR c.id = :customerId) AND " +
+            "(:beforeId IS NULL OR b.id < :beforeId) " +
+            "ORDER BY b.id DESC")
+    List<BidSummaryDTO> findSummaryPageByFilter(
+            @Param("itemId") Long itemId,
+            @Param("customerId") Long customerId,
+            @Param("beforeId") Long beforeId,
+            Limit limit
+    );
+
+    // The highest bid of each item, the earliest of equal ones, as stored; read on the index on (item_id, bid_amount)
+    @Query("SELECT b.item.id AS itemId, b.id AS bidId, b.customer.id AS bidderId, b.bidAmount AS amount " +
+            "FROM Bid b WHERE b.item.id IN :itemIds AND NOT EXISTS (SELECT 1 FROM Bid o " +
+            "WHERE o.item.id = b.item.id AND (o.bidAmount > b.bidAmount OR (o.bidAmount = b.bidAmount AND o.id < b.id)))")
+    List<WinningBid> findWinningBids(@Param("itemIds") Collection<Long> itemIds);
+
+    interface WinningBid {
+        Long getItemId();
+
+        Long getBidId();
+
+        Long getBidderId();
+
+        BigDecimal getAmount();
+    }
 }
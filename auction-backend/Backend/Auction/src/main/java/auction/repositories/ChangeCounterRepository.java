@@ -0,0 +1,22 @@
+package auction.repositories;
+
+import auction.entities.ChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, String> {
+
+    @Query("SELECT c.version FROM ChangeCounter c WHERE c.name = :name")
+    Optional<Long> findVersion(@Param("name") String name);
+
+    // Joins the caller's transaction, so the counter moves together with the change it marks
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChangeCounter c SET c.version = c.version + 1 WHERE c.name = :name")
+    int increment(@Param("name") String name);
+}
@@ -1,13 +1,30 @@
 package auction.repositories;
 
 import auction.entities.Category;
+import auction.entities.ChangeCounter;
+import auction.entities.DTO.ItemFacetRow;
+import auction.entities.DTO.ItemSearchRow;
+import auction.entities.DTO.ItemSummaryDTO;
 import auction.entities.Item;
+import auction.entities.enums.AuctionStatus;
 import auction.entities.enums.ItemStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
@@ -20,4 +37,193 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOptionalFilters(@Param("status") ItemStatus status,
                                         @Param("categoryId") Long categoryId);
 
+    String SUMMARY_SELECT = "SELECT new auction.entities.DTO.ItemSummaryDTO(" +
+            "i.id, i.name, c.id, c.name, s.id, s.username, s.firstName, s.lastName, " +
+            "i.startingPrice, i.currentPrice, i.bidCount, i.startTime, i.endTime, i.status, i.auctionStatus, " +
+            "i.imageHash) " +
+            "FROM Item i JOIN i.category c JOIN i.seller s ";
+
+    String SUMMARY_FILTERS = "(:status IS NULL OR i.status = :status) " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) ";
+
+    // Keyset pages: each query continues strictly after the sort key of the previous page's last row.
+
+    @Query(SUMMARY_SELECT + "WHERE " + SUMMARY_FILTERS + "AND i.endTime IS NOT NULL " +
+            "AND (:endTime IS NULL OR i.endTime > :endTime OR (i.endTime = :endTime AND i.id > :id)) " +
+            "ORDER BY i.endTime ASC, i.id ASC")
+    List<ItemSummaryDTO> findSummariesEndingSoonest(@Param("status") ItemStatus status,
+                                                    @Param("categoryId") Long categoryId,
+                                                    @Param("endTime") LocalDateTime endTime,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE " + SUMMARY_FILTERS +
+            "AND (:id IS NULL OR i.id < :id) " +
+            "ORDER BY i.id DESC")
+    List<ItemSummaryDTO> findSummariesNewest(@Param("status") ItemStatus status,
+                                             @Param("categoryId") Long categoryId,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE " + SUMMARY_FILTERS +
+            "AND (:price IS NULL OR i.currentPrice < :price OR (i.currentPrice = :price AND i.id < :id)) " +
+            "ORDER BY i.currentPrice DESC, i.id DESC")
+    List<ItemSummaryDTO> findSummariesHighestPrice(@Param("status") ItemStatus status,
+                                                   @Param("categoryId") Long categoryId,
+                                                   @Param("price") BigDecimal price,
+                                                   @Param("id") Long id,
+                                                   Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE i.id IN :ids")
+    List<ItemSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The search text of every item, or of the items in one category, read as a stream
+     * so rebuilding the search index never holds all descriptions in memory.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new auction.entities.DTO.ItemSearchRow(i.id, i.name, i.description, c.id, c.name, i.status) " +
+            "FROM Item i LEFT JOIN i.category c WHERE (:categoryId IS NULL OR c.id = :categoryId)")
+    Stream<ItemSearchRow> streamSearchRows(@Param("categoryId") Long categoryId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new auction.entities.DTO.ItemFacetRow(i.id, c.id, i.status, i.auctionStatus, i.currentPrice) " +
+            "FROM Item i LEFT JOIN i.category c")
+    Stream<ItemFacetRow> streamFacetRows();
+
+    @Query("SELECT new auction.entities.DTO.ItemFacetRow(i.id, c.id, i.status, i.auctionStatus, i.currentPrice) " +
+            "FROM Item i LEFT JOIN i.category c WHERE i.id IN :ids")
+    List<ItemFacetRow> findFacetRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Everything an item's ETag is made of, in one lookup
+    @Query("SELECT i.version AS version, (SELECT c.version FROM ChangeCounter c " +
+            "WHERE c.name = '" + ChangeCounter.ITEM_LABELS + "') AS labelsVersion FROM Item i WHERE i.id = :id")
+    Optional<ETagVersions> findETagVersionsById(@Param("id") Long id);
+
+    /**
+     * Bump the version of the item without changing it, for changes to its bids that
+     * do not go through {@link #applyBid}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.version = i.version + 1 WHERE i.id = :id")
+    int touch(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = {"seller", "category"})
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findDetailsById(@Param("id") Long id);
+
+    // Items without bids show their starting price as the current price.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.currentPrice = i.startingPrice WHERE i.currentPrice IS NULL")
+    int fillMissingCurrentPrices();
+
+    // Applies an accepted bid only if nobody changed the item since it was read, the auction
+    // is still running and the bid is above the current price; returns 0 otherwise.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.currentPrice = :price, i.bidCount = i.bidCount + 1, " +
+            "i.leadingBidderId = :bidderId, i.version = i.version + 1 " +
+            "WHERE i.id = :itemId AND i.version = :version " +
+            "AND i.auctionStatus = auction.entities.enums.AuctionStatus.ACTIVE " +
+            "AND (i.bidCount = 0 OR i.currentPrice < :price)")
+    int applyBid(@Param("itemId") Long itemId,
+                 @Param("price") BigDecimal price,
+                 @Param("bidderId") Long bidderId,
+                 @Param("version") Long version);
+
+    // Buy now: ends a running auction at its buy-now price in one step. Of a buy-now and a bid
+    // racing for the row, exactly one sees the auction still ACTIVE; returns 0 for the loser.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.auctionStatus = auction.entities.enums.AuctionStatus.ENDED, " +
+            "i.currentPrice = :price, i.bidCount = i.bidCount + 1, i.leadingBidderId = :buyerId, " +
+            "i.endTime = :now, i.version = i.version + 1 " +
+            "WHERE i.id = :id AND i.auctionStatus = auction.entities.enums.AuctionStatus.ACTIVE " +
+            "AND i.buyNowPrice = :price AND (i.bidCount = 0 OR i.currentPrice < :price)")
+    int buyNow(@Param("id") Long id,
+               @Param("price") BigDecimal price,
+               @Param("buyerId") Long buyerId,
+               @Param("now") LocalDateTime now);
+
+    // Soft close: moves the end of a running auction back, never forward.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.endTime = :endTime, i.version = i.version + 1 " +
+            "WHERE i.id = :id AND i.endTime < :endTime " +
+            "AND i.auctionStatus = auction.entities.enums.AuctionStatus.ACTIVE")
+    int extendAuction(@Param("id") Long id, @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT i.id AS id, i.startTime AS startTime, i.endTime AS endTime, i.auctionStatus AS auctionStatus " +
+            "FROM Item i WHERE i.status = auction.entities.enums.ItemStatus.APPROVED " +
+            "AND i.auctionStatus <> auction.entities.enums.AuctionStatus.ENDED")
+    List<AuctionTimes> findScheduledAuctionTimes();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.auctionStatus = auction.entities.enums.AuctionStatus.ACTIVE, i.version = i.version + 1 " +
+            "WHERE i.id IN :ids AND i.auctionStatus = auction.entities.enums.AuctionStatus.NOT_STARTED " +
+            "AND i.status = auction.entities.enums.ItemStatus.APPROVED AND i.startTime <= :now")
+    int activateAuctions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Item i SET i.auctionStatus = auction.entities.enums.AuctionStatus.ENDED, i.version = i.version + 1 " +
+            "WHERE i.id IN :ids AND i.auctionStatus = auction.entities.enums.AuctionStatus.ACTIVE " +
+            "AND i.endTime <= :now")
+    int endAuctions(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Ended auctions whose result has not been settled yet; settlement moves them on to SOLD or EXPIRED.
+    @Query("SELECT i.id AS id, i.seller.id AS sellerId, i.reservePrice AS reservePrice FROM Item i " +
+            "WHERE i.auctionStatus = auction.entities.enums.AuctionStatus.ENDED " +
+            "AND i.status = auction.entities.enums.ItemStatus.APPROVED")
+    List<EndedAuction> findUnsettledAuctions();
+
+    // Whether the auction is over and who leads it, as stored
+    @Query("SELECT i.auctionStatus AS auctionStatus, i.endTime AS endTime, i.leadingBidderId AS leadingBidderId " +
+            "FROM Item i WHERE i.id = :id")
+    Optional<AuctionOutcome> findAuctionOutcomeById(@Param("id") Long id);
+
+    @Query("SELECT i.id AS id, i.seller.id AS sellerId, i.reservePrice AS reservePrice FROM Item i " +
+            "WHERE i.id IN :ids AND i.auctionStatus = auction.entities.enums.AuctionStatus.ENDED " +
+            "AND i.status = auction.entities.enums.ItemStatus.APPROVED")
+    List<EndedAuction> findUnsettledAuctions(@Param("ids") Collection<Long> ids);
+
+    interface AuctionOutcome {
+        AuctionStatus getAuctionStatus();
+
+        LocalDateTime getEndTime();
+
+        Long getLeadingBidderId();
+
+        default boolean hasEnded() {
+            return getAuctionStatus() == AuctionStatus.ENDED
+                    || getEndTime() != null && getEndTime().isBefore(LocalDateTime.now());
+        }
+    }
+
+    interface ETagVersions {
+        Long getVersion();
+
+        Long getLabelsVersion();
+    }
+
+    interface AuctionTimes {
+        Long getId();
+
+        LocalDateTime getStartTime();
+
+        LocalDateTime getEndTime();
+
+        AuctionStatus getAuctionStatus();
+    }
+
+    interface EndedAuction {
+        Long getId();
+
+        Long getSellerId();
+
+        BigDecimal getReservePrice();
+    }
 }
@@ -1,27 +1,71 @@
 package auction.repositories;
 
 
+import auction.entities.DTO.PaymentSummaryDTO;
 import auction.entities.Payment;
 import auction.entities.enums.PaymentStatus;
 
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
+import java.util.Optional;
 
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+   @EntityGraph(Payment.WITH_BID_DETAILS)
    List<Payment> findByCustomerId(Long customerId);
+   @EntityGraph(Payment.WITH_BID_DETAILS)
    List<Payment> findBySellerId(Long sellerId);
+   Optional<Payment> findByBidId(Long bidId);
 
 
 
 
     // Find payments by customerId and PaymentStatus
+   @EntityGraph(Payment.WITH_BID_DETAILS)
    List<Payment> findByCustomerIdAndPaymentStatus(Long customerId, PaymentStatus status);
 
 
    // Find payments by sellerId and PaymentStatus
+   @EntityGraph(Payment.WITH_BID_DETAILS)
    List<Payment> findBySellerIdAndPaymentStatus(Long sellerId, PaymentStatus status);
 
 
+   // Keyset pages, newest first, with an optional status
+   @EntityGraph(Payment.WITH_BID_DETAILS)
+   @Query("SELECT p FROM Payment p WHERE p.customer.id = :customerId " +
+           "AND (:status IS NULL OR p.paymentStatus = :status) " +
+           "AND (:beforeId IS NULL OR p.id < :beforeId) ORDER BY p.id DESC")
+   List<Payment> findCustomerPage(@Param("customerId") Long customerId,
+                                  @Param("status") PaymentStatus status,
+                                  @Param("beforeId") Long beforeId,
+                                  Limit limit);
+
+
+   @EntityGraph(Payment.WITH_BID_DETAILS)
+   @Query("SELECT p FROM Payment p WHERE p.seller.id = :sellerId " +
+           "AND (:status IS NULL OR p.paymentStatus = :status) " +
+           "AND (:beforeId IS NULL OR p.id < :beforeId) ORDER BY p.id DESC")
+   List<Payment> findSellerPage(@Param("sellerId") Long sellerId,
+                                @Param("status") PaymentStatus status,
+                                @Param("beforeId") Long beforeId,
+                                Limit limit);
+
+
+   // Compact rows for either a customer's or a seller's payments
+   @Query("SELECT new auction.entities.DTO.PaymentSummaryDTO(p.id, b.id, b.item.id, p.customer.id, p.seller.id, " +
+           "p.amount, p.paymentStatus, p.transactionTime) FROM Payment p JOIN p.bid b " +
+           "WHERE (:customerId IS NULL OR p.customer.id = :customerId) " +
+           "AND (:sellerId IS NULL OR p.seller.id = :sellerId) " +
+           "AND (:status IS NULL OR p.paymentStatus = :status) " +
+           "AND (:beforeId IS NULL OR p.id < :beforeId) ORDER BY p.id DESC")
+   List<PaymentSummaryDTO> findSummaryPage(@Param("customerId") Long customerId,
+                                           @Param("sellerId") Long sellerId,
+                                           @Param("status") PaymentStatus status,
+                                           @Param("beforeId") Long beforeId,
+                                           Limit limit);
 }
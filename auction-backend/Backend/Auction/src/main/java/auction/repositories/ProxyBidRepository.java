@@ -0,0 +1,14 @@
+package auction.repositories;
+
+import auction.entities.ProxyBid;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProxyBidRepository extends JpaRepository<ProxyBid, Long> {
+
+    List<ProxyBid> findByItemId(Long itemId);
+
+    Optional<ProxyBid> findByItemIdAndCustomerId(Long itemId, Long customerId);
+}
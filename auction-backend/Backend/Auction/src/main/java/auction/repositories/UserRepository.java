@@ -2,7 +2,10 @@ package auction.repositories;
 
 import auction.entities.User;
 import auction.entities.enums.Role;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +16,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findAllByRole(Role role);
 
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u FROM User u WHERE (:role IS NULL OR u.role = :role) " +
+            "AND (:afterId IS NULL OR u.id > :afterId) ORDER BY u.id ASC")
+    List<User> findPage(@Param("role") Role role, @Param("afterId") Long afterId, Limit limit);
 }
@@ -0,0 +1,168 @@
+package auction.services;
+
+import auction.entities.Payment;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.PaymentStatus;
+import auction.repositories.BidRepository;
+import auction.repositories.BidRepository.WinningBid;
+import auction.repositories.ItemRepository;
+import auction.repositories.ItemRepository.EndedAuction;
+import auction.repositories.PaymentRepository;
+import auction.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Settles auctions that have ended: the highest bid gets its final price, the item
+ * becomes SOLD (or EXPIRED when nobody bid or the reserve price was not met) and the
+ * winner gets an UNPAID payment.
+ * <p>
+ * The winning bids are read from the bids table, not from this node's price index,
+ * since bids accepted on other nodes never reach it.
+ * <p>
+ * Every step is written as one JDBC batch for all items closed together; the payments
+ * are saved as entities and batched by Hibernate. An item is only settled while it is
+ * still APPROVED, so running the close twice for the same item does nothing the second
+ * time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuctionCloseService {
+
+    private final ItemRepository itemRepository;
+    private final BidRepository bidRepository;
+    private final UserRepository userRepository;
+    private final PaymentRepository paymentRepository;
+    private final BidSequencer bidSequencer;
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemFacetCounter itemFacetCounter;
+    private final BidJournalWriter bidJournalWriter;
+    private final ProxyBidBook proxyBidBook;
+    private final CurrentPriceIndex currentPriceIndex;
+
+    /**
+     * Settle every ended auction that has not been settled yet, e.g. after a restart.
+     */
+    @Transactional
+    public List<ClosedAuction> closePending() {
+        return settle(itemRepository.findUnsettledAuctions());
+    }
+
+    /**
+     * Settle the given auctions and return the ones this call settled.
+     */
+    @Transactional
+    public List<ClosedAuction> close(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        return settle(itemRepository.findUnsettledAuctions(itemIds));
+    }
+
+    private List<ClosedAuction> settle(List<EndedAuction> auctions) {
+        if (auctions.isEmpty()) {
+            return List.of();
+        }
+
+        for (EndedAuction auction : auctions) {
+            // Taking the item's bid lock waits for a bid that was accepted here just before the end to be recorded.
+            bidSequencer.sequence(auction.getId(), () -> null);
+            // No more bids come in, whichever node settles it
+            currentPriceIndex.evict(auction.getId());
+        }
+        // In journal mode the winning bids may not be in the table yet.
+        bidJournalWriter.awaitPersisted();
+
+        Map<Long, WinningBid> winners = bidRepository.findWinningBids(
+                        auctions.stream().map(EndedAuction::getId).toList()).stream()
+                .collect(Collectors.toMap(WinningBid::getItemId, Function.identity()));
+        List<Settlement> settlements = new ArrayList<>(auctions.size());
+        for (EndedAuction auction : auctions) {
+            settlements.add(new Settlement(auction, winners.get(auction.getId())));
+        }
+
+        // Claim the items first; only the ones this call moved out of APPROVED are settled further.
+        int[] claimed = jdbcTemplate.batchUpdate(
+                "UPDATE items SET status = ?, version = version + 1 WHERE item_id = ? AND status = ?",
+                settlements, settlements.size(), (ps, settlement) -> {
+                    ps.setString(1, settlement.sold() ? ItemStatus.SOLD.name() : ItemStatus.EXPIRED.name());
+                    ps.setLong(2, settlement.auction().getId());
+                    ps.setString(3, ItemStatus.APPROVED.name());
+                })[0];
+
+        List<ClosedAuction> closed = new ArrayList<>();
+        List<Settlement> sold = new ArrayList<>();
+        for (int i = 0; i < settlements.size(); i++) {
+            if (claimed[i] == 0) {
+                continue;
+            }
+            Settlement settlement = settlements.get(i);
+            itemCache.evict(settlement.auction().getId());
+            proxyBidBook.evict(settlement.auction().getId());
+            ItemStatus status = settlement.sold() ? ItemStatus.SOLD : ItemStatus.EXPIRED;
+            itemSearchIndex.updateStatus(settlement.auction().getId(), status);
+            itemFacetCounter.updateStatus(settlement.auction().getId(), status);
+            closed.add(new ClosedAuction(settlement.auction().getId(), settlement.sold(),
+                    settlement.sold() ? settlement.winner().getAmount() : null));
+            if (settlement.sold()) {
+                sold.add(settlement);
+            }
+        }
+
+        if (!sold.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE bids SET final_price = ? WHERE bid_id = ?",
+                    sold, sold.size(), (ps, settlement) -> {
+                        ps.setBigDecimal(1, settlement.winner().getAmount());
+                        ps.setLong(2, settlement.winner().getBidId());
+                    });
+
+            // Saved as entities so the payment ids come from their generator; the inserts go
+            // out as one batch when the transaction flushes.
+            LocalDateTime now = LocalDateTime.now();
+            List<Payment> payments = new ArrayList<>(sold.size());
+            for (Settlement settlement : sold) {
+                payments.add(Payment.builder()
+                        .bid(bidRepository.getReferenceById(settlement.winner().getBidId()))
+                        .customer(userRepository.getReferenceById(settlement.winner().getBidderId()))
+                        .seller(userRepository.getReferenceById(settlement.auction().getSellerId()))
+                        .amount(settlement.winner().getAmount())
+                        .paymentStatus(PaymentStatus.UNPAID)
+                        .transactionTime(now)
+                        .build());
+            }
+            paymentRepository.saveAll(payments);
+        }
+
+        log.info("Settled {} ended auctions, {} sold.", closed.size(), sold.size());
+        return closed;
+    }
+
+    public record ClosedAuction(Long itemId, boolean sold, BigDecimal winningAmount) {
+    }
+
+    // The winner is null when nobody bid
+    private record Settlement(EndedAuction auction, WinningBid winner) {
+
+        // The reserve is judged against the highest bid alone.
+        boolean sold() {
+            BigDecimal reserve = auction.getReservePrice();
+            return winner != null && (reserve == null || winner.getAmount().compareTo(reserve) >= 0);
+        }
+    }
+}
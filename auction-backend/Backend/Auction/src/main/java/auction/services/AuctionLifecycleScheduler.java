@@ -0,0 +1,221 @@
+package auction.services;
+
+import auction.entities.DTO.AuctionEndedEventDTO;
+import auction.entities.Item;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.repositories.ItemRepository;
+import auction.repositories.ItemRepository.AuctionTimes;
+import auction.services.AuctionCloseService.ClosedAuction;
+import auction.services.DeadlineIndex.Deadline;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves auctions from NOT_STARTED to ACTIVE at their start time and from ACTIVE
+ * to ENDED at their end time.
+ * <p>
+ * Every approved auction has its pending transitions in a {@link DeadlineIndex}. A single
+ * worker thread waits for the next one to fall due, drains everything else that is due
+ * at the same moment and applies each kind of transition with one bulk update.
+ * Rescheduling an item, e.g. when a late bid extends it, replaces its transitions in
+ * the index. Auctions that end are handed to {@link AuctionCloseService} to be settled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuctionLifecycleScheduler {
+
+    private static final int UPDATE_CHUNK_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final AuctionCloseService auctionCloseService;
+    private final AuctionStreamService auctionStreamService;
+    private final ItemCache itemCache;
+    private final ItemFacetCounter itemFacetCounter;
+
+    @Value("${auction.lifecycle.enabled:true}")
+    private boolean enabled;
+
+    private final DeadlineIndex deadlines = new DeadlineIndex();
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Auction lifecycle scheduler is disabled.");
+            return;
+        }
+        reload();
+        publishEnded(auctionCloseService.closePending());
+        worker = new Thread(this::run, "auction-lifecycle");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Rebuild the whole schedule from the start and end times of all approved,
+     * unfinished auctions. Transitions that are already overdue fire right away.
+     */
+    public void reload() {
+        List<AuctionTimes> auctions = itemRepository.findScheduledAuctionTimes();
+        deadlines.clear();
+        for (AuctionTimes auction : auctions) {
+            schedule(auction.getId(), auction.getStartTime(), auction.getEndTime(), auction.getAuctionStatus());
+        }
+        log.info("Scheduled lifecycle transitions for {} auctions.", auctions.size());
+    }
+
+    /**
+     * Apply every transition that is already due on the calling thread.
+     */
+    public void fireDue() {
+        fire(deadlines.drainDue());
+    }
+
+    /**
+     * (Re)schedule an item after it was created, approved or edited. Inside a transaction
+     * the item is only scheduled once the change is committed.
+     */
+    public void schedule(Item item) {
+        Long itemId = item.getId();
+        ItemStatus status = item.getStatus();
+        LocalDateTime startTime = item.getStartTime();
+        LocalDateTime endTime = item.getEndTime();
+        AuctionStatus auctionStatus = item.getAuctionStatus();
+        afterCommit(() -> {
+            if (status != ItemStatus.APPROVED) {
+                deadlines.remove(itemId);
+            } else {
+                schedule(itemId, startTime, endTime, auctionStatus);
+            }
+        });
+    }
+
+    public void unschedule(Long itemId) {
+        afterCommit(() -> deadlines.remove(itemId));
+    }
+
+    /**
+     * Move the end of a running auction; the caller has already stored the new end time.
+     */
+    public void extend(Long itemId, LocalDateTime endTime) {
+        deadlines.put(itemId, AuctionStatus.ENDED, endTime);
+    }
+
+    private void schedule(Long itemId, LocalDateTime startTime, LocalDateTime endTime, AuctionStatus auctionStatus) {
+        deadlines.remove(itemId);
+        if (auctionStatus == AuctionStatus.ENDED) {
+            return;
+        }
+
+        if (auctionStatus == AuctionStatus.NOT_STARTED && startTime != null) {
+            deadlines.put(itemId, AuctionStatus.ACTIVE, startTime);
+        }
+        if (endTime != null) {
+            deadlines.put(itemId, AuctionStatus.ENDED, endTime);
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                fire(deadlines.awaitDue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Failed to apply auction lifecycle transitions", e);
+            }
+        }
+    }
+
+    private void fire(List<Deadline> due) {
+        List<Long> toActivate = new ArrayList<>();
+        List<Long> toEnd = new ArrayList<>();
+        for (Deadline deadline : due) {
+            if (deadline.target() == AuctionStatus.ACTIVE) {
+                toActivate.add(deadline.itemId());
+            } else {
+                toEnd.add(deadline.itemId());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int activated = 0;
+        for (List<Long> chunk : chunks(toActivate)) {
+            int updated = itemRepository.activateAuctions(chunk, now);
+            updateFacets(chunk, updated, AuctionStatus.NOT_STARTED, AuctionStatus.ACTIVE);
+            activated += updated;
+        }
+        // An auction extended after its old deadline was taken keeps running: the update checks the end time.
+        int ended = 0;
+        for (List<Long> chunk : chunks(toEnd)) {
+            int updated = itemRepository.endAuctions(chunk, now);
+            updateFacets(chunk, updated, AuctionStatus.ACTIVE, AuctionStatus.ENDED);
+            ended += updated;
+        }
+        itemCache.evict(toActivate);
+        itemCache.evict(toEnd);
+        publishEnded(auctionCloseService.close(toEnd));
+
+        if (activated > 0 || ended > 0) {
+            log.info("Auction lifecycle: {} started, {} ended.", activated, ended);
+        }
+    }
+
+    // If the update skipped some rows (extended, no longer approved, ...) the facets of the chunk are re-read.
+    private void updateFacets(List<Long> chunk, int updated, AuctionStatus from, AuctionStatus to) {
+        if (updated == chunk.size()) {
+            itemFacetCounter.updateAuctionStatus(chunk, from, to);
+        } else {
+            itemRepository.findFacetRowsByIds(chunk).forEach(itemFacetCounter::record);
+        }
+    }
+
+    private void publishEnded(List<ClosedAuction> closed) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ClosedAuction auction : closed) {
+            auctionStreamService.publishAuctionEnded(
+                    new AuctionEndedEventDTO(auction.itemId(), auction.sold(), auction.winningAmount(), now));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + UPDATE_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
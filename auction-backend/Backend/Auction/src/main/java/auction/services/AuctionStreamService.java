@@ -0,0 +1,379 @@
+package auction.services;
+
+import auction.entities.DTO.AuctionEndedEventDTO;
+import auction.entities.DTO.AuctionExtendedEventDTO;
+import auction.entities.DTO.BidEventDTO;
+import auction.entities.DTO.ItemSummaryDTO;
+import auction.entities.DTO.StreamStatsDTO;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.Role;
+import auction.exceptions.ServiceException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes bid, auction-extended and auction-ended events to clients watching an auction over
+ * server-sent events, so they do not have to poll the bid history.
+ * <p>
+ * Publishing never blocks the caller. Events for an item are held for the coalescing
+ * window and only the latest event of each kind is sent when it closes, so a burst of
+ * bids becomes a single update. Each event is serialized once and the same frame is
+ * handed to every watcher. Watchers are written to from a small delivery pool, and
+ * each one has a bounded queue: a watcher that falls behind loses its oldest frames
+ * instead of making the server buffer without limit.
+ * <p>
+ * The write to the client runs on a separate sender thread and the delivery thread waits
+ * for it only up to the send timeout. A watcher has at most one write in flight; one that
+ * stops reading is dropped then, and its stuck write holds up nothing but its own sender
+ * thread until the container gives up on the connection. The sender pool is bounded and
+ * never queues: when every sender thread is taken, the watcher being written to is
+ * dropped instead of starting another thread.
+ */
+@Slf4j
+@Service
+public class AuctionStreamService {
+
+    public static final String BID_EVENT = "bid";
+    public static final String AUCTION_EXTENDED_EVENT = "auction-extended";
+    public static final String AUCTION_ENDED_EVENT = "auction-ended";
+
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final ItemCache itemCache;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final long coalesceWindowMillis;
+    private final int subscriberQueueSize;
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService delivery;
+    private final ThreadPoolExecutor sender;
+    private final long sendTimeoutMillis;
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    public AuctionStreamService(ItemCache itemCache,
+                                ObjectMapper objectMapper,
+                                @Value("${auction.stream.timeout-ms:1800000}") long timeoutMillis,
+                                @Value("${auction.stream.coalesce-window-ms:100}") long coalesceWindowMillis,
+                                @Value("${auction.stream.subscriber-queue-size:16}") int subscriberQueueSize,
+                                @Value("${auction.stream.delivery-threads:4}") int deliveryThreads,
+                                @Value("${auction.stream.send-timeout-ms:5000}") long sendTimeoutMillis,
+                                @Value("${auction.stream.sender-threads:32}") int senderThreads) {
+        this.itemCache = itemCache;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(daemonThreads("auction-stream-flush"));
+        this.delivery = Executors.newFixedThreadPool(deliveryThreads, daemonThreads("auction-stream-delivery"));
+        // One write in flight per watcher; threads stuck on dropped watchers count against the cap until their writes fail
+        this.sender = new ThreadPoolExecutor(0, senderThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                daemonThreads("auction-stream-send"));
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        delivery.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Start watching an item. Returns null if there is no such item or its auction has already ended.
+     */
+    public SseEmitter subscribe(Long itemId) {
+        return subscribe(itemId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long itemId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, subscriberQueueSize);
+        Topic topic = topics.compute(itemId, (id, current) -> {
+            Topic joined = current != null ? current : new Topic(id);
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+
+        // Checked after joining: an auction that ends from here on still reaches this watcher.
+        List<ItemSummaryDTO> item = itemCache.getSummaries(List.of(itemId));
+        if (item.isEmpty() || item.get(0).getAuctionStatus() == AuctionStatus.ENDED) {
+            unsubscribe(topic, subscriber);
+            return null;
+        }
+
+        Runnable remove = () -> unsubscribe(topic, subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    public void publishBid(BidEventDTO event) {
+        publish(event.getItemId(), BID_EVENT, event);
+    }
+
+    public void publishAuctionExtended(AuctionExtendedEventDTO event) {
+        publish(event.getItemId(), AUCTION_EXTENDED_EVENT, event);
+    }
+
+    /**
+     * Sends the final event right away, after any coalesced bid, and closes the item's streams.
+     */
+    public void publishAuctionEnded(AuctionEndedEventDTO event) {
+        Topic topic = topics.remove(event.getItemId());
+        if (topic == null) {
+            return;
+        }
+        synchronized (topic.pending) {
+            topic.pending.put(AUCTION_ENDED_EVENT, event);
+        }
+        flusher.execute(() -> flush(topic, true));
+    }
+
+    public StreamStatsDTO getStats(UserPrincipal principal) {
+        if (principal == null || !principal.hasRole(Role.ADMIN)) {
+            throw new ServiceException("Only admins can view stream statistics", new RuntimeException());
+        }
+        return getStats();
+    }
+
+    StreamStatsDTO getStats() {
+        List<StreamStatsDTO.ItemStreamStats> items = new ArrayList<>();
+        int subscribers = 0;
+        int queued = 0;
+        for (Topic topic : topics.values()) {
+            int depth = 0;
+            for (Subscriber subscriber : topic.subscribers) {
+                depth += subscriber.queue.size();
+            }
+            items.add(new StreamStatsDTO.ItemStreamStats(topic.itemId, topic.subscribers.size(), depth));
+            subscribers += topic.subscribers.size();
+            queued += depth;
+        }
+        return new StreamStatsDTO(subscribers, queued, droppedFrames.get(), droppedSubscribers.get(), items);
+    }
+
+    // Coalesced: only the latest event of the kind is sent when the window closes.
+    private void publish(Long itemId, String name, Object event) {
+        Topic topic = topics.get(itemId);
+        if (topic == null) {
+            return;
+        }
+        synchronized (topic.pending) {
+            topic.pending.put(name, event);
+        }
+        if (topic.flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(() -> flush(topic, false), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(Topic topic, boolean last) {
+        topic.flushScheduled.set(false);
+        Map<String, Object> events;
+        synchronized (topic.pending) {
+            events = new LinkedHashMap<>(topic.pending);
+            topic.pending.clear();
+        }
+
+        for (Map.Entry<String, Object> event : events.entrySet()) {
+            Set<DataWithMediaType> frame = serialize(event.getKey(), event.getValue());
+            if (frame == null) {
+                continue;
+            }
+            for (Subscriber subscriber : topic.subscribers) {
+                if (!subscriber.offer(frame)) {
+                    droppedFrames.incrementAndGet();
+                }
+                if (last) {
+                    subscriber.completeAfterDrain = true;
+                }
+                schedule(topic, subscriber);
+            }
+        }
+    }
+
+    // The last watcher to leave takes the topic with it.
+    private void unsubscribe(Topic topic, Subscriber subscriber) {
+        topic.subscribers.remove(subscriber);
+        topics.computeIfPresent(topic.itemId, (id, current) ->
+                current == topic && current.subscribers.isEmpty() ? null : current);
+    }
+
+    private Set<DataWithMediaType> serialize(String name, Object data) {
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event", name, e);
+            return null;
+        }
+    }
+
+    private void schedule(Topic topic, Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            delivery.execute(() -> drain(topic, subscriber));
+        }
+    }
+
+    private void drain(Topic topic, Subscriber subscriber) {
+        try {
+            Set<DataWithMediaType> frame;
+            while ((frame = subscriber.queue.poll()) != null) {
+                send(subscriber, frame);
+            }
+            if (subscriber.completeAfterDrain) {
+                subscriber.emitter.complete();
+            }
+        } catch (TimeoutException e) {
+            log.debug("Dropping watcher of item {}: a send took longer than {} ms", topic.itemId, sendTimeoutMillis);
+            unsubscribe(topic, subscriber);
+            subscriber.queue.clear();
+            droppedSubscribers.incrementAndGet();
+            // The emitter stays locked by the stuck write, so that write completes it when it returns.
+            if (subscriber.abandon(e)) {
+                subscriber.emitter.completeWithError(e);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropping watcher of item {}: all {} sender threads are busy", topic.itemId, sender.getMaximumPoolSize());
+            unsubscribe(topic, subscriber);
+            subscriber.queue.clear();
+            droppedSubscribers.incrementAndGet();
+            subscriber.emitter.completeWithError(e);
+        } catch (Exception e) {
+            log.debug("Dropping watcher of item {}: {}", topic.itemId, e.getMessage());
+            unsubscribe(topic, subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A frame may have been queued after the loop saw an empty queue but before draining was reset.
+        if (!subscriber.queue.isEmpty() && topic.subscribers.contains(subscriber)) {
+            schedule(topic, subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, Set<DataWithMediaType> frame) throws Exception {
+        subscriber.startWrite();
+        Future<?> write;
+        try {
+            write = sender.submit(() -> {
+                try {
+                    subscriber.emitter.send(frame);
+                } finally {
+                    Exception abandonedFor = subscriber.finishWrite();
+                    if (abandonedFor != null) {
+                        subscriber.emitter.completeWithError(abandonedFor);
+                    }
+                }
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.finishWrite();
+            throw e;
+        }
+        try {
+            write.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Topic {
+
+        private final Long itemId;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final Map<String, Object> pending = new LinkedHashMap<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        Topic(Long itemId) {
+            this.itemId = itemId;
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final LinkedBlockingDeque<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean completeAfterDrain;
+        private boolean writing;
+        private Exception abandonedFor;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new LinkedBlockingDeque<>(capacity);
+        }
+
+        /**
+         * Queue a frame, dropping the oldest one if the watcher is too far behind.
+         * Returns false if a frame had to be dropped.
+         */
+        boolean offer(Set<DataWithMediaType> frame) {
+            if (queue.offerLast(frame)) {
+                return true;
+            }
+            queue.pollFirst();
+            queue.offerLast(frame);
+            return false;
+        }
+
+        synchronized void startWrite() {
+            writing = true;
+        }
+
+        /**
+         * Returns why the watcher was abandoned while the write was in flight, or null;
+         * the emitter is then the writer's to complete.
+         */
+        synchronized Exception finishWrite() {
+            writing = false;
+            return abandonedFor;
+        }
+
+        /**
+         * Give up on the watcher. Returns true if no write is in flight any more, so the
+         * caller completes the emitter; otherwise the write does when it returns.
+         */
+        synchronized boolean abandon(Exception cause) {
+            abandonedFor = cause;
+            return !writing;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package auction.services;
+
+import auction.entities.DTO.UserIdentityDTO;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.Item;
+import auction.services.CurrentPriceIndex.CurrentPrice;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * A bid on its way through the {@link BidRulePipeline}. The item and the bidder are
+ * loaded the first time a rule asks for them, so a bid that a cheaper rule rejects
+ * never reaches the database.
+ */
+@Getter
+public class BidContext {
+
+    private final Long itemId;
+    private final Long customerId;
+    private final BigDecimal amount;
+    private final UserPrincipal principal;
+
+    @Getter(AccessLevel.NONE)
+    private final Function<Long, Item> itemLoader;
+    @Getter(AccessLevel.NONE)
+    private final Function<Long, UserIdentityDTO> customerLoader;
+    private Item item;
+    private UserIdentityDTO customer;
+
+    // Set under the item's bid lock, for the PRICE rules
+    @Setter
+    private CurrentPrice currentPrice;
+
+    public BidContext(Long itemId, Long customerId, BigDecimal amount, UserPrincipal principal,
+                      Function<Long, Item> itemLoader, Function<Long, UserIdentityDTO> customerLoader) {
+        this.itemId = itemId;
+        this.customerId = customerId;
+        this.amount = amount;
+        this.principal = principal;
+        this.itemLoader = itemLoader;
+        this.customerLoader = customerLoader;
+    }
+
+    public Item getItem() {
+        if (item == null) {
+            item = itemLoader.apply(itemId);
+        }
+        return item;
+    }
+
+    public UserIdentityDTO getCustomer() {
+        if (customer == null) {
+            customer = customerLoader.apply(customerId);
+        }
+        return customer;
+    }
+}
@@ -0,0 +1,50 @@
+package auction.services;
+
+import auction.entities.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * How much a bid has to beat the previous one by. The increment grows with the price
+ * band the previous bid is in ({@code auction.bids.increment-bands}, as
+ * {@code from:increment} pairs); an item's own bid increment is the least it can be.
+ */
+@Component
+public class BidIncrementTable {
+
+    public static final String DEFAULT_BANDS =
+            "0:0.05,1:0.25,5:0.50,25:1.00,100:2.50,250:5.00,500:10.00,1000:25.00,2500:50.00,5000:100.00";
+
+    private final NavigableMap<BigDecimal, BigDecimal> bands = new TreeMap<>();
+
+    public BidIncrementTable(@Value("${auction.bids.increment-bands:" + DEFAULT_BANDS + "}") String bands) {
+        for (String band : bands.split(",")) {
+            String[] parts = band.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bid increment band must be from:increment, got " + band);
+            }
+            this.bands.put(new BigDecimal(parts[0].trim()), new BigDecimal(parts[1].trim()));
+        }
+        if (this.bands.isEmpty() || this.bands.firstKey().signum() > 0) {
+            throw new IllegalArgumentException("Bid increment bands must start at 0.");
+        }
+    }
+
+    public BigDecimal incrementAt(Item item, BigDecimal price) {
+        Map.Entry<BigDecimal, BigDecimal> band = bands.floorEntry(price.max(BigDecimal.ZERO));
+        BigDecimal own = item.getBidIncrement();
+        return own != null && own.compareTo(band.getValue()) > 0 ? own : band.getValue();
+    }
+
+    /**
+     * The lowest bid that beats the given amount, the last bid or the starting price.
+     */
+    public BigDecimal minimumNextBid(Item item, BigDecimal lastAmount) {
+        return lastAmount.add(incrementAt(item, lastAmount));
+    }
+}
@@ -0,0 +1,410 @@
+package auction.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of accepted bids in memory-mapped segment files.
+ * <p>
+ * Every bid is a fixed-size record that carries its sequence number and a checksum, so
+ * a record that was only partly written when the process died is recognised on the next
+ * start and everything from it on is ignored. Appending only writes to the mapped pages
+ * and then waits for a single sync thread, which forces the pages of everything appended
+ * since its previous pass to disk. Bids arriving while a sync is running share the next
+ * one, so the number of fsyncs does not grow with the number of bids.
+ * <p>
+ * Entries are also handed out in order through {@link #take} to be stored elsewhere; a
+ * segment file is deleted once {@link #release} confirms every entry in it was stored.
+ * Entries of segments left over from a previous run are handed out first.
+ */
+@Slf4j
+public class BidJournal implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    private static final int CHECKSUMMED_BYTES = 60;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("bids-(\\d{20})\\.journal");
+    // How often a waiting append checks that the sync thread is still there
+    private static final long SYNC_CHECK_MILLIS = 1_000;
+
+    private final Path dir;
+    private final int segmentRecords;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    // Oldest first; the last one is the segment being appended to
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final BlockingQueue<Entry> untaken = new LinkedBlockingQueue<>();
+    private final long lastRecoveredSeq;
+    private final Thread syncer;
+
+    private long lastSeq;
+    private long syncedSeq;
+    private IOException syncFailure;
+    private boolean closed;
+
+    /**
+     * Open the journal in the directory, recovering the entries of any segments already there.
+     */
+    public BidJournal(Path dir, int segmentRecords) throws IOException {
+        if (segmentRecords < 1 || segmentRecords > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Invalid number of records per segment: " + segmentRecords);
+        }
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        Files.createDirectories(dir);
+
+        long seq = 0;
+        for (Path file : segmentFiles()) {
+            Segment segment = Segment.recover(file, seq + 1, untaken);
+            if (segment.lastSeq < segment.firstSeq) {
+                // Created but never written to before the process stopped
+                Files.delete(file);
+                continue;
+            }
+            segments.add(segment);
+            seq = segment.lastSeq;
+        }
+        lastRecoveredSeq = seq;
+        lastSeq = seq;
+        syncedSeq = seq;
+        if (seq > 0) {
+            log.info("Bid journal recovered {} entries from {} segments.", untaken.size(), segments.size());
+        }
+        segments.add(Segment.create(dir, seq + 1, segmentRecords));
+
+        syncer = new Thread(this::sync, "bid-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * Append a bid and return once it is on disk.
+     */
+    public Entry append(long bidId, long itemId, long customerId, long sellerId,
+                        BigDecimal amount, LocalDateTime bidTime) throws IOException {
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() > 63) {
+            throw new IllegalArgumentException("Bid amount " + amount + " is too large.");
+        }
+
+        lock.lock();
+        try {
+            checkOpen();
+            Segment segment = segments.getLast();
+            if (segment.isFull()) {
+                // Everything in the full segment is made durable before the next one takes entries.
+                segment.force();
+                segment.seal();
+                segment = Segment.create(dir, lastSeq + 1, segmentRecords);
+                segments.add(segment);
+            }
+            Entry entry = new Entry(lastSeq + 1, bidId, itemId, customerId, sellerId, amount,
+                    bidTime.truncatedTo(ChronoUnit.MICROS));
+            segment.write(entry, unscaled.longValue());
+            lastSeq = entry.seq();
+            untaken.add(entry);
+            appended.signal();
+
+            // The entry is in the journal and will be stored, so an interrupt does not end the wait.
+            boolean interrupted = false;
+            try {
+                while (syncedSeq < entry.seq()) {
+                    checkOpen();
+                    if (!syncer.isAlive()) {
+                        throw new IOException("The bid journal sync thread has stopped.");
+                    }
+                    try {
+                        synced.await(SYNC_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The next entries that have not been taken yet, in order. Waits up to the timeout
+     * for the first one and returns an empty list if none came.
+     */
+    public List<Entry> take(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        List<Entry> entries = new ArrayList<>();
+        Entry first = untaken.poll(timeout, unit);
+        if (first != null) {
+            entries.add(first);
+            untaken.drainTo(entries, max - 1);
+        }
+        return entries;
+    }
+
+    /**
+     * Delete the segments whose entries all have a sequence number up to {@code seq}.
+     */
+    public void release(long seq) {
+        List<Segment> released = new ArrayList<>();
+        lock.lock();
+        try {
+            while (segments.size() > 1 && segments.getFirst().lastSeq <= seq) {
+                released.add(segments.removeFirst());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Segment segment : released) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                log.warn("Could not delete bid journal segment {}", segment.file, e);
+            }
+        }
+    }
+
+    /**
+     * The sequence number of the last entry recovered at startup, 0 if there was none.
+     */
+    public long lastRecoveredSeq() {
+        return lastRecoveredSeq;
+    }
+
+    /**
+     * The sequence number of the last entry appended or recovered.
+     */
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signalAll();
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sync() {
+        while (true) {
+            MappedByteBuffer pages;
+            long target;
+            lock.lock();
+            try {
+                while (syncedSeq == lastSeq && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (syncedSeq == lastSeq) {
+                    return;
+                }
+                // The buffer itself, since an append may seal the segment while it is being forced
+                pages = segments.getLast().buffer;
+                target = lastSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            // Forced without the lock so that appends go on meanwhile; they wait for the next pass.
+            IOException failure = null;
+            try {
+                pages.force();
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            }
+
+            lock.lock();
+            try {
+                if (failure != null) {
+                    log.error("Bid journal sync failed; no more bids are accepted.", failure);
+                    syncFailure = failure;
+                    closed = true;
+                } else {
+                    syncedSeq = Math.max(syncedSeq, target);
+                }
+                synced.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (syncFailure != null) {
+            throw new IOException("The bid journal failed to sync.", syncFailure);
+        }
+        if (closed) {
+            throw new IOException("The bid journal is closed.");
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * One bid as written to the journal. The time is kept to the microsecond, like the column.
+     */
+    public record Entry(long seq, long bidId, long itemId, long customerId, long sellerId,
+                        BigDecimal amount, LocalDateTime bidTime) {
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final long firstSeq;
+        private final int capacity;
+        private MappedByteBuffer buffer;
+        private long lastSeq;
+
+        private Segment(Path file, long firstSeq, int capacity, MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstSeq = firstSeq;
+            this.capacity = capacity;
+            this.buffer = buffer;
+            this.lastSeq = firstSeq - 1;
+        }
+
+        static Segment create(Path dir, long firstSeq, int capacity) throws IOException {
+            Path file = dir.resolve(String.format("bids-%020d.journal", firstSeq));
+            return new Segment(file, firstSeq, capacity, map(file, (long) capacity * RECORD_SIZE));
+        }
+
+        /**
+         * Read the valid entries of a segment from a previous run. The segment is not
+         * appended to again, so it is not kept mapped.
+         */
+        static Segment recover(Path file, long expectedSeq, BlockingQueue<Entry> entries) throws IOException {
+            Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+            name.matches();
+            long firstSeq = Long.parseLong(name.group(1));
+            MappedByteBuffer buffer = map(file, Files.size(file));
+            int capacity = buffer.capacity() / RECORD_SIZE;
+
+            Segment segment = new Segment(file, firstSeq, capacity, null);
+            if (firstSeq >= expectedSeq) {
+                for (int i = 0; i < capacity; i++) {
+                    Entry entry = read(buffer, i, firstSeq + i);
+                    if (entry == null) {
+                        break;
+                    }
+                    entries.add(entry);
+                    segment.lastSeq = entry.seq();
+                }
+            }
+            return segment;
+        }
+
+        boolean isFull() {
+            return lastSeq - firstSeq + 1 == capacity;
+        }
+
+        void write(Entry entry, long unscaledAmount) {
+            int offset = (int) (entry.seq() - firstSeq) * RECORD_SIZE;
+            LocalDateTime time = entry.bidTime();
+            buffer.putLong(offset, entry.seq());
+            buffer.putLong(offset + 8, entry.bidId());
+            buffer.putLong(offset + 16, entry.itemId());
+            buffer.putLong(offset + 24, entry.customerId());
+            buffer.putLong(offset + 32, entry.sellerId());
+            buffer.putLong(offset + 40, unscaledAmount);
+            buffer.putLong(offset + 48, time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000);
+            buffer.putInt(offset + 56, entry.amount().scale());
+            buffer.putInt(offset + 60, checksum(buffer, offset));
+            lastSeq = entry.seq();
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void seal() {
+            buffer = null;
+        }
+
+        // The entry at the index, or null if the record there is incomplete or was never written
+        private static Entry read(MappedByteBuffer buffer, int index, long expectedSeq) {
+            int offset = index * RECORD_SIZE;
+            if (buffer.getLong(offset) != expectedSeq || buffer.getInt(offset + 60) != checksum(buffer, offset)) {
+                return null;
+            }
+            long micros = buffer.getLong(offset + 48);
+            return new Entry(expectedSeq,
+                    buffer.getLong(offset + 8),
+                    buffer.getLong(offset + 16),
+                    buffer.getLong(offset + 24),
+                    buffer.getLong(offset + 32),
+                    BigDecimal.valueOf(buffer.getLong(offset + 40), buffer.getInt(offset + 56)),
+                    LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                            (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC));
+        }
+
+        private static int checksum(MappedByteBuffer buffer, int offset) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset, CHECKSUMMED_BYTES));
+            return (int) crc.getValue();
+        }
+
+        private static MappedByteBuffer map(Path file, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+}
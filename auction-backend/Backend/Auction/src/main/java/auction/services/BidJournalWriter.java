@@ -0,0 +1,246 @@
+package auction.services;
+
+import auction.entities.Bid;
+import auction.exceptions.ServiceException;
+import auction.services.BidJournal.Entry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind mode for bids ({@code auction.bids.journal.enabled}).
+ * <p>
+ * A bid is accepted once it is in the {@link BidJournal}; a background thread then
+ * stores the journaled bids in the {@code bids} table in batches, moving the price,
+ * bid count and leader of their items along in the same transaction. Bid ids are taken
+ * from the bid id generator up front, so the journal can replay a bid into the table
+ * after a crash and tell from its id whether that already happened.
+ * <p>
+ * Bids left in the journal by a previous run are stored before the application starts
+ * taking requests. Anything that needs all accepted bids in the table, like settlement,
+ * waits for {@link #awaitPersisted}.
+ */
+@Slf4j
+@Service
+public class BidJournalWriter {
+
+    private static final long RETRY_MILLIS = 1_000;
+    private static final long PERSIST_TIMEOUT_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemCache itemCache;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentRecords;
+    private final int batchSize;
+
+    private BidJournal journal;
+    private SessionFactoryImplementor sessionFactory;
+    private IdentifierGenerator bidIds;
+    private Thread worker;
+    private long persistedSeq;
+
+    public BidJournalWriter(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            EntityManagerFactory entityManagerFactory,
+                            ItemCache itemCache,
+                            @Value("${auction.bids.journal.enabled:false}") boolean enabled,
+                            @Value("${auction.bids.journal.dir:data/journal}") String dir,
+                            @Value("${auction.bids.journal.segment-records:65536}") int segmentRecords,
+                            @Value("${auction.bids.journal.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.itemCache = itemCache;
+        this.enabled = enabled;
+        this.dir = Path.of(dir).toAbsolutePath();
+        this.segmentRecords = segmentRecords;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        bidIds = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Bid.class).getGenerator();
+        journal = new BidJournal(dir, segmentRecords);
+
+        // Replayed on this thread, so nothing reads the bid tables before they are complete.
+        while (persistedSeq < journal.lastRecoveredSeq()) {
+            persist(journal.take(batchSize, 0, TimeUnit.MILLISECONDS), true);
+        }
+
+        worker = new Thread(this::run, "bid-journal-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Bids are journaled in {}.", dir);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker != null) {
+            worker.interrupt();
+            worker.join();
+        }
+        if (journal != null) {
+            // Bids not stored yet stay in the journal and are replayed on the next start.
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A new bid id from the same generator the bid entity uses.
+     */
+    public Long nextBidId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) bidIds.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+
+    /**
+     * Journal a bid that was accepted; returns once it is on disk.
+     */
+    public void append(Bid bid) {
+        try {
+            journal.append(bid.getId(), bid.getItem().getId(), bid.getCustomer().getId(), bid.getSeller().getId(),
+                    bid.getBidAmount(), bid.getBidTime());
+        } catch (IOException e) {
+            throw new ServiceException("The bid could not be recorded, please try again.", e);
+        }
+    }
+
+    /**
+     * Wait until every bid journaled so far is stored in the table.
+     */
+    public void awaitPersisted() {
+        if (!enabled) {
+            return;
+        }
+        long target = journal.lastSeq();
+        long deadline = System.currentTimeMillis() + PERSIST_TIMEOUT_MILLIS;
+        synchronized (this) {
+            while (persistedSeq < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Journaled bids were not stored within "
+                            + PERSIST_TIMEOUT_MILLIS + " ms.");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for journaled bids.", e);
+                }
+            }
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Entry> batch = journal.take(batchSize, 1, TimeUnit.SECONDS);
+                for (int attempt = 1; !batch.isEmpty(); attempt++) {
+                    try {
+                        // A failed attempt may have committed before it failed, so retries skip stored bids.
+                        persist(batch, attempt > 1);
+                        batch = List.of();
+                    } catch (RuntimeException e) {
+                        // The bids are safe in the journal; keep the batch and try again.
+                        log.error("Failed to store {} journaled bids, retrying.", batch.size(), e);
+                        Thread.sleep(RETRY_MILLIS);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void persist(List<Entry> batch, boolean mayBeStored) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Long> itemIds = transactionTemplate.execute(status -> {
+            List<Entry> entries = mayBeStored ? notStoredYet(batch) : batch;
+
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO bids (bid_id, item_id, customer_id, seller_id, bid_amount, bid_time) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)",
+                    entries, entries.size(), (ps, entry) -> {
+                        ps.setLong(1, entry.bidId());
+                        ps.setLong(2, entry.itemId());
+                        ps.setLong(3, entry.customerId());
+                        ps.setLong(4, entry.sellerId());
+                        ps.setBigDecimal(5, entry.amount());
+                        ps.setTimestamp(6, Timestamp.valueOf(entry.bidTime()));
+                    });
+
+            // Bids of an item are accepted in rising order, so the item ends up at its last bid.
+            Map<Long, ItemBids> items = new LinkedHashMap<>();
+            for (Entry entry : entries) {
+                items.compute(entry.itemId(), (itemId, bids) ->
+                        new ItemBids(entry, bids == null ? 1 : bids.count() + 1));
+            }
+            List<ItemBids> updates = new ArrayList<>(items.values());
+            jdbcTemplate.batchUpdate(
+                    "UPDATE items SET current_price = ?, bid_count = bid_count + ?, leading_bidder_id = ?, " +
+                            "version = version + 1 WHERE item_id = ?",
+                    updates, updates.size(), (ps, bids) -> {
+                        ps.setBigDecimal(1, bids.last().amount());
+                        ps.setInt(2, bids.count());
+                        ps.setLong(3, bids.last().customerId());
+                        ps.setLong(4, bids.last().itemId());
+                    });
+            return new ArrayList<>(items.keySet());
+        });
+        itemCache.evict(itemIds);
+
+        long seq = batch.get(batch.size() - 1).seq();
+        journal.release(seq);
+        synchronized (this) {
+            persistedSeq = seq;
+            notifyAll();
+        }
+    }
+
+    // The entries whose bid is not in the table, e.g. of a replay after a crash between commit and release
+    private List<Entry> notStoredYet(List<Entry> entries) {
+        Map<String, Object> params = Map.of("ids", entries.stream().map(Entry::bidId).toList());
+        Set<Long> stored = new HashSet<>(new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                "SELECT bid_id FROM bids WHERE bid_id IN (:ids)", params, Long.class));
+        return entries.stream().filter(entry -> !stored.contains(entry.bidId())).toList();
+    }
+
+    private record ItemBids(Entry last, int count) {
+    }
+}
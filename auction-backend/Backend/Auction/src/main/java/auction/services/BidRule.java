@@ -0,0 +1,47 @@
+package auction.services;
+
+import java.util.function.Consumer;
+
+/**
+ * One check a bid has to pass. A rule rejects the bid by throwing, usually an
+ * {@link IllegalArgumentException} with the message the bidder gets to see.
+ */
+public interface BidRule {
+
+    String name();
+
+    Stage stage();
+
+    Cost cost();
+
+    void check(BidContext bid);
+
+    static BidRule of(String name, Stage stage, Cost cost, Consumer<BidContext> check) {
+        return new SimpleBidRule(name, stage, cost, check);
+    }
+
+    /**
+     * When a rule runs: before the item's bid lock is taken, or under it against the current price.
+     */
+    enum Stage {
+        ADMISSION,
+        PRICE
+    }
+
+    /**
+     * What a rule needs to look at; within a stage the cheaper rules run first.
+     */
+    enum Cost {
+        REQUEST,
+        MEMORY,
+        DATABASE
+    }
+
+    record SimpleBidRule(String name, Stage stage, Cost cost, Consumer<BidContext> check) implements BidRule {
+
+        @Override
+        public void check(BidContext bid) {
+            check.accept(bid);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package auction.services;
+
+import auction.entities.DTO.BidRuleStatsDTO;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.enums.Role;
+import auction.exceptions.ServiceException;
+import auction.services.BidRule.Stage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the {@link BidRule}s of a stage, cheapest first, and stops at the first one
+ * that rejects the bid. Every rule is timed; a rule that is the first to need the
+ * item or the bidder also carries the cost of loading it.
+ */
+@Component
+public class BidRulePipeline {
+
+    private final Map<Stage, List<TimedRule>> stages = new EnumMap<>(Stage.class);
+
+    public BidRulePipeline(List<BidRule> rules) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new ArrayList<>());
+        }
+        rules.stream()
+                .sorted(Comparator.comparing(BidRule::cost))
+                .forEach(rule -> stages.get(rule.stage()).add(new TimedRule(rule)));
+    }
+
+    public void check(Stage stage, BidContext bid) {
+        for (TimedRule rule : stages.get(stage)) {
+            rule.check(bid);
+        }
+    }
+
+    public List<BidRuleStatsDTO> getStats(UserPrincipal principal) {
+        if (principal == null || !principal.hasRole(Role.ADMIN)) {
+            throw new ServiceException("Only admins can view bid rule statistics", new RuntimeException());
+        }
+        return getStats();
+    }
+
+    List<BidRuleStatsDTO> getStats() {
+        List<BidRuleStatsDTO> stats = new ArrayList<>();
+        for (List<TimedRule> rules : stages.values()) {
+            for (TimedRule rule : rules) {
+                long evaluations = rule.evaluations.sum();
+                double averageMicros = evaluations == 0 ? 0 : rule.totalNanos.sum() / 1_000.0 / evaluations;
+                stats.add(new BidRuleStatsDTO(rule.rule.name(), rule.rule.stage().name(), rule.rule.cost().name(),
+                        evaluations, rule.rejections.sum(), averageMicros, rule.maxNanos.get() / 1_000.0));
+            }
+        }
+        return stats;
+    }
+
+    private static final class TimedRule {
+
+        private final BidRule rule;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        TimedRule(BidRule rule) {
+            this.rule = rule;
+        }
+
+        void check(BidContext bid) {
+            long start = System.nanoTime();
+            try {
+                rule.check(bid);
+            } catch (RuntimeException e) {
+                rejections.increment();
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                evaluations.increment();
+                totalNanos.add(elapsed);
+                maxNanos.accumulateAndGet(elapsed, Math::max);
+            }
+        }
+    }
+}
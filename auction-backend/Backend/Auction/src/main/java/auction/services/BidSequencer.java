@@ -0,0 +1,46 @@
+package auction.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes bids per item with a fixed set of striped locks.
+ * Bids on the same item always run one after another, while bids on items
+ * that map to different stripes run in parallel.
+ */
+@Component
+public class BidSequencer {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public BidSequencer(@Value("${auction.bids.lock-stripes:64}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Run the action while holding the lock of the item's stripe.
+     */
+    public <T> T sequence(Long itemId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(itemId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Long itemId) {
+        int h = itemId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
@@ -3,56 +3,122 @@ package auction.services;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import auction.entities.Bid;
+import auction.entities.DTO.AuctionEndedEventDTO;
+import auction.entities.DTO.AuctionExtendedEventDTO;
+import auction.entities.DTO.BidEventDTO;
+import auction.entities.DTO.BidSummaryDTO;
+import auction.entities.DTO.ProxyBidDTO;
+import auction.entities.DTO.UserIdentityDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.Item;
+import auction.entities.ProxyBid;
 import auction.entities.RO.BidRO;
+import auction.entities.RO.BuyNowRO;
+import auction.entities.RO.ProxyBidRO;
 import auction.entities.User;
 import auction.entities.enums.AuctionStatus;
-import auction.entities.enums.Role;
+import auction.entities.response.CursorPage;
+import auction.entities.response.SideLoadedPage;
+import auction.entities.utils.CursorUtils;
 import auction.exceptions.ServiceException;
 import auction.repositories.BidRepository;
 import auction.repositories.ItemRepository;
+import auction.repositories.ItemRepository.AuctionOutcome;
+import auction.repositories.ProxyBidRepository;
 import auction.repositories.UserRepository;
+import auction.services.AuctionCloseService.ClosedAuction;
+import auction.services.BidRule.Stage;
+import auction.services.CurrentPriceIndex.CurrentPrice;
+import auction.services.ProxyBidBook.AutoBid;
+import auction.services.ProxyBidBook.Proxy;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BidService {
 
 
+    private static final int MAX_BID_ATTEMPTS = 3;
+    private static final String BID_CURSOR = "BID";
+
+
     private final BidRepository bidRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
+    private final ItemCache itemCache;
+    private final ItemFacetCounter itemFacetCounter;
+    private final CurrentPriceIndex currentPriceIndex;
+    private final BidSequencer bidSequencer;
+    private final TransactionTemplate transactionTemplate;
+    private final AuctionStreamService auctionStreamService;
+    private final BidJournalWriter bidJournalWriter;
+    private final ProxyBidRepository proxyBidRepository;
+    private final ProxyBidBook proxyBidBook;
+    private final AuctionLifecycleScheduler auctionLifecycleScheduler;
+    private final BidRulePipeline bidRulePipeline;
+    private final BidIncrementTable bidIncrementTable;
+    private final AuctionCloseService auctionCloseService;
+
+    // Soft close: a bid this close to the end pushes the end back; 0 turns it off.
+    @Value("${auction.soft-close.window-seconds:0}")
+    private long softCloseWindowSeconds;
+
+    @Value("${auction.soft-close.extension-seconds:0}")
+    private long softCloseExtensionSeconds;
+
+
+    public CursorPage<Bid> getAllBids(String cursor, Integer limit) {
+        return getAllByFilter(null, null, cursor, limit);
+    }
 
 
-    public List<Bid> getAllBids() {
-        return bidRepository.findAll();
+    public CursorPage<Bid> getBidsByItem(Long itemId, String cursor, Integer limit) {
+        return getAllByFilter(itemId, null, cursor, limit);
     }
 
 
-    public List<Bid> getBidsByItem(Long itemId) {
-        return bidRepository.findByItemId(itemId);
+    public CursorPage<Bid> getBidsByUser(Long customerId, String cursor, Integer limit) {
+        return getAllByFilter(null, customerId, cursor, limit);
     }
 
 
-    public List<Bid> getBidsByUser(Long customerId) {
-        return bidRepository.findByCustomerId(customerId);
+    /**
+     * One page of bids, newest first.
+     */
+    public CursorPage<Bid> getAllByFilter(Long itemId, Long customerId, String cursor, Integer limit) {
+        int pageSize = CursorUtils.pageSize(limit);
+        List<Bid> bids = bidRepository.findPageByFilter(itemId, customerId,
+                CursorUtils.decodeId(cursor, BID_CURSOR), Limit.of(pageSize + 1));
+        return CursorPage.of(bids, pageSize, bid -> CursorUtils.encode(BID_CURSOR, bid.getId()));
     }
 
 
-    public List<Bid> getAllByFilter(Long itemId, Long customerId) {
-        return bidRepository.findByFilter(itemId, customerId);
+    /**
+     * The same page as {@link #getAllByFilter}, as compact rows with each referenced item sent once.
+     */
+    public SideLoadedPage<BidSummaryDTO> getCompactByFilter(Long itemId, Long customerId, String cursor, Integer limit) {
+        int pageSize = CursorUtils.pageSize(limit);
+        List<BidSummaryDTO> bids = bidRepository.findSummaryPageByFilter(itemId, customerId,
+                CursorUtils.decodeId(cursor, BID_CURSOR), Limit.of(pageSize + 1));
+        CursorPage<BidSummaryDTO> page = CursorPage.of(bids, pageSize, bid -> CursorUtils.encode(BID_CURSOR, bid.getId()));
+        return SideLoadedPage.of(page, BidSummaryDTO::getItemId, itemCache::getSummaries);
     }
 
 
@@ -62,22 +128,10 @@ public class BidService {
      * @return Optional containing the winning bid if exists, empty otherwise
      */
     public Optional<Bid> getAuctionWinner(Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException("Item not found"));
-       
-        // Check if the auction has ended
-        if (item.getEndTime() != null && item.getEndTime().isBefore(LocalDateTime.now())) {
-            // Get all bids for this item
-            List<Bid> bids = bidRepository.findByItemId(itemId);
-           
-            // If there are bids, find the highest bid
-            if (!bids.isEmpty()) {
-                return bids.stream()
-                        .max(Comparator.comparing(Bid::getBidAmount));
-            }
+        if (!findAuctionOutcome(itemId).hasEnded()) {
+            return Optional.empty();
         }
-       
-        return Optional.empty();
+        return bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(itemId);
     }
    
     /**
@@ -87,90 +141,280 @@ public class BidService {
      * @return true if the user is the winner, false otherwise
      */
     public boolean isUserAuctionWinner(Long itemId, Long userId) {
-        Optional<Bid> winningBid = getAuctionWinner(itemId);
-       
-        return winningBid.isPresent() &&
-               winningBid.get().getCustomer() != null &&
-               winningBid.get().getCustomer().getId().equals(userId);
+        AuctionOutcome outcome = findAuctionOutcome(itemId);
+        return outcome.hasEnded() && userId.equals(outcome.getLeadingBidderId());
     }
 
 
-    public Bid placeBid(BidRO bidRO, HttpSession session) {
-        User loggedInUser = (User) session.getAttribute("loggedInUser");
-        if (loggedInUser == null) {
-            throw new ServiceException("User must be logged in to place a bid.", new RuntimeException());
-        }
+    // Read from the row, not this node's caches, which miss bids accepted on other nodes
+    private AuctionOutcome findAuctionOutcome(Long itemId) {
+        return itemRepository.findAuctionOutcomeById(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item not found"));
+    }
 
 
-        Item item = itemRepository.findById(bidRO.getItemId())
-                .orElseThrow(() -> new EntityNotFoundException("Item not found"));
+    public Bid placeBid(BidRO bidRO, UserPrincipal principal) {
+        BidContext bid = admit(bidRO.getItemId(), bidRO.getCustomerId(), bidRO.getBidAmount(), principal);
+        Item item = bid.getItem();
 
 
-        if (!item.getAuctionStatus().equals(AuctionStatus.ACTIVE)) {
-            throw new IllegalArgumentException("Bidding is only allowed when the auction is ACTIVE.");
-        }
+        // The price check and the insert must not interleave with other bids on the same item,
+        // otherwise two bidders can both beat the same previous amount.
+        return bidSequencer.sequence(item.getId(), () -> {
+            checkPrice(bid);
+            Bid savedBid = recordBid(item, bid.getCustomer(), item.getSeller(), bid.getAmount());
+            try {
+                resolveProxies(item, item.getSeller());
+            } catch (RuntimeException e) {
+                // The bid itself is stored; the proxies get their turn again with the next bid.
+                log.warn("Proxy bids on item {} were not resolved: {}", item.getId(), e.getMessage());
+            }
+            return savedBid;
+        });
+    }
 
 
-        User customer = userRepository.findById(bidRO.getCustomerId())
-                .orElseThrow(() -> new EntityNotFoundException("Customer not found"));
+    /**
+     * Register or replace the caller's hidden maximum for an item. The engine immediately
+     * bids for the caller as far as needed to lead, and answers later bids the same way.
+     */
+    public ProxyBidDTO placeProxyBid(ProxyBidRO proxyBidRO, UserPrincipal principal) {
+        BidContext bid = admit(proxyBidRO.getItemId(), proxyBidRO.getCustomerId(), proxyBidRO.getMaxAmount(), principal);
+        Item item = bid.getItem();
+        Long customerId = bid.getCustomerId();
 
 
-        User seller = item.getSeller();
-        if (seller == null) {
-            throw new IllegalArgumentException("Item must have a seller before bidding.");
-        }
+        return bidSequencer.sequence(item.getId(), () -> {
+            checkPrice(bid);
 
 
-        if (!loggedInUser.getId().equals(customer.getId())) {
-            throw new IllegalArgumentException("You can only place bids on behalf of your own account.");
-        }
+            ProxyBid proxyBid = proxyBidRepository.findByItemIdAndCustomerId(item.getId(), customerId)
+                    .orElseGet(() -> ProxyBid.builder()
+                            .item(item)
+                            .customer(userRepository.getReferenceById(customerId))
+                            .build());
+            proxyBid.setMaxAmount(proxyBidRO.getMaxAmount());
+            proxyBid.setPlacedAt(LocalDateTime.now());
+            proxyBidRepository.save(proxyBid);
+            proxyBidBook.put(item.getId(), new Proxy(customerId, proxyBid.getMaxAmount(), proxyBid.getPlacedAt()));
 
 
-        if (customer.getRole() == Role.ADMIN) {
-            throw new IllegalArgumentException("Admins cannot place bids.");
+            resolveProxies(item, item.getSeller());
+            CurrentPrice currentPrice = currentPriceIndex.get(item.getId());
+            return new ProxyBidDTO(item.getId(), proxyBid.getMaxAmount(), currentPrice.getAmount(),
+                    customerId.equals(currentPrice.getBidderId()));
+        });
+    }
+
+
+    /**
+     * Buy the item at its buy-now price, which ends the auction and settles it at once.
+     * Whether the purchase or a competing bid gets the item is decided by the conditional
+     * update on the item row alone.
+     */
+    public Bid buyNow(BuyNowRO buyNowRO, UserPrincipal principal) {
+        BidContext bid = admit(buyNowRO.getItemId(), buyNowRO.getCustomerId(), null, principal);
+        Item item = bid.getItem();
+        BigDecimal price = item.getBuyNowPrice();
+        if (price == null) {
+            throw new IllegalArgumentException("This item cannot be bought now.");
         }
 
 
-        if (customer.getId().equals(seller.getId())) {
-            throw new IllegalArgumentException("You cannot bid on your own item.");
+        Bid purchase = bidSequencer.sequence(item.getId(), () -> {
+            // The row has to hold every bid accepted so far, or the journal writer would overwrite the sale later.
+            bidJournalWriter.awaitPersisted();
+
+
+            Bid bought = newBid(item, userRepository.getReferenceById(bid.getCustomerId()), item.getSeller(), price);
+            Bid savedBid = transactionTemplate.execute(status ->
+                    itemRepository.buyNow(item.getId(), price, bid.getCustomerId(), bought.getBidTime()) == 1
+                            ? bidRepository.save(bought)
+                            : null);
+            if (savedBid == null) {
+                throw new IllegalArgumentException("This item can no longer be bought now.");
+            }
+
+
+            currentPriceIndex.record(savedBid);
+            itemFacetCounter.updatePrice(item.getId(), price);
+            itemFacetCounter.updateAuctionStatus(List.of(item.getId()), AuctionStatus.ACTIVE, AuctionStatus.ENDED);
+            itemCache.evict(item.getId());
+            auctionLifecycleScheduler.unschedule(item.getId());
+            auctionStreamService.publishBid(new BidEventDTO(item.getId(), price,
+                    bid.getCustomer().getUsername(), savedBid.getBidTime(), null));
+            return savedBid;
+        });
+
+
+        // Settled here rather than by the scheduler, so the buyer gets the payment right away.
+        LocalDateTime now = LocalDateTime.now();
+        for (ClosedAuction closed : auctionCloseService.close(List.of(item.getId()))) {
+            auctionStreamService.publishAuctionEnded(
+                    new AuctionEndedEventDTO(closed.itemId(), closed.sold(), closed.winningAmount(), now));
         }
+        return purchase;
+    }
+
+
+    // Everything that decides whether the caller may bid on the item at all
+    private BidContext admit(Long itemId, Long customerId, BigDecimal amount, UserPrincipal principal) {
+        BidContext bid = new BidContext(itemId, customerId, amount, principal,
+                id -> itemRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Item not found")),
+                userService::getIdentity);
+        bidRulePipeline.check(Stage.ADMISSION, bid);
+        return bid;
+    }
+
+
+    // The checks against the current price; has to run under the item's bid lock.
+    private void checkPrice(BidContext bid) {
+        bid.setCurrentPrice(currentPriceIndex.get(bid.getItemId()));
+        bidRulePipeline.check(Stage.PRICE, bid);
+    }
 
 
-        if (customer.getRole() != Role.CUSTOMER && customer.getRole() != Role.SELLER) {
-            throw new IllegalArgumentException("Only customers or sellers can place bids.");
+    // Let the proxies answer the standing bid; has to run under the item's bid lock.
+    private void resolveProxies(Item item, User seller) {
+        Collection<Proxy> proxies = proxyBidBook.get(item.getId());
+        if (proxies.isEmpty()) {
+            return;
         }
+        CurrentPrice currentPrice = currentPriceIndex.get(item.getId());
+        List<AutoBid> bids = ProxyBidBook.resolve(currentPrice.getBidderId(), currentPrice.getAmount(),
+                bidIncrementTable.minimumNextBid(item, item.getStartingPrice()),
+                price -> bidIncrementTable.incrementAt(item, price), proxies);
+        for (AutoBid bid : bids) {
+            recordBid(item, userService.getIdentity(bid.customerId()), seller, bid.amount());
+        }
+    }
 
 
-        Optional<Bid> lastBidOpt = bidRepository.findByItemId(item.getId()).stream()
-                .max(Comparator.comparing(Bid::getBidAmount));
+    // Store an accepted bid and tell the watchers; has to run under the item's bid lock.
+    private Bid recordBid(Item item, UserIdentityDTO customer, User seller, BigDecimal amount) {
+        User bidder = userRepository.getReferenceById(customer.getId());
+        Bid savedBid = bidJournalWriter.isEnabled()
+                ? journalBid(item, bidder, seller, amount)
+                : saveBid(item, bidder, seller, amount);
+        // Publishing only hands the event to the broadcaster; doing it under the lock keeps watchers in bid order.
+        auctionStreamService.publishBid(new BidEventDTO(item.getId(), savedBid.getBidAmount(),
+                customer.getUsername(), savedBid.getBidTime(), bidIncrementTable.minimumNextBid(item, savedBid.getBidAmount())));
+        extendIfClosing(item, savedBid.getBidTime());
+        return savedBid;
+    }
 
 
-        BigDecimal lastBidAmount = lastBidOpt.map(Bid::getBidAmount).orElse(item.getStartingPrice());
-        BigDecimal bidIncrement = BigDecimal.ONE;
-        BigDecimal minNextBid = lastBidAmount.add(bidIncrement);
+    /**
+     * Soft close: a bid in the last moments of an auction gives everyone the extension
+     * to answer it. Closing load then spreads over the extension windows instead of
+     * landing on the original end time.
+     */
+    private void extendIfClosing(Item item, LocalDateTime bidTime) {
+        LocalDateTime endTime = item.getEndTime();
+        if (softCloseWindowSeconds <= 0 || endTime == null
+                || bidTime.isBefore(endTime.minusSeconds(softCloseWindowSeconds))) {
+            return;
+        }
+        LocalDateTime extendedEnd = bidTime.plusSeconds(softCloseExtensionSeconds);
+        if (!extendedEnd.isAfter(endTime) || itemRepository.extendAuction(item.getId(), extendedEnd) == 0) {
+            return;
+        }
+        item.setEndTime(extendedEnd);
+        item.setVersion(item.getVersion() + 1);
+        itemCache.evict(item.getId());
+        auctionLifecycleScheduler.extend(item.getId(), extendedEnd);
+        auctionStreamService.publishAuctionExtended(new AuctionExtendedEventDTO(item.getId(), extendedEnd));
+    }
 
 
-        if (bidRO.getBidAmount().compareTo(minNextBid) < 0) {
-            throw new IllegalArgumentException("Bid must be at least " + minNextBid);
+    /**
+     * Journal mode: the bid is accepted against the in-memory price and written to the
+     * journal; the item row and the bids table are brought up to date by the journal writer.
+     */
+    private Bid journalBid(Item item, User customer, User seller, BigDecimal amount) {
+        // With no conditional update on the item row, the end time is what stops late bids.
+        if (item.getEndTime() != null && !LocalDateTime.now().isBefore(item.getEndTime())) {
+            throw new IllegalArgumentException("Bidding is only allowed when the auction is ACTIVE.");
         }
 
 
-        Bid bid = new Bid();
-        bid.updateFromRO(bidRO, item, customer);
-        bid.setSeller(seller);
-        bid.setBidTime(LocalDateTime.now());
+        Bid bid = newBid(item, customer, seller, amount);
+        bid.setId(bidJournalWriter.nextBidId());
+        bidJournalWriter.append(bid);
 
 
-        return bidRepository.save(bid);
+        currentPriceIndex.record(bid);
+        itemFacetCounter.updatePrice(item.getId(), bid.getBidAmount());
+        return bid;
     }
 
 
-    public void deleteBid(Long bidId) {
-        if (!bidRepository.existsById(bidId)) {
-            throw new EntityNotFoundException("Bid not found.");
+    private Bid saveBid(Item item, User customer, User seller, BigDecimal amount) {
+        for (int attempt = 1; ; attempt++) {
+            Bid bid = newBid(item, customer, seller, amount);
+
+
+            // The item row is only moved forward if its version is still the one we read,
+            // and the bid is inserted in the same transaction.
+            Long itemId = item.getId();
+            Long version = item.getVersion();
+            Bid savedBid = transactionTemplate.execute(status -> {
+                int updated = itemRepository.applyBid(itemId, bid.getBidAmount(), customer.getId(), version);
+                return updated == 1 ? bidRepository.save(bid) : null;
+            });
+
+
+            if (savedBid != null) {
+                item.setCurrentPrice(savedBid.getBidAmount());
+                item.setBidCount(item.getBidCount() + 1);
+                item.setLeadingBidderId(customer.getId());
+                item.setVersion(item.getVersion() + 1);
+                currentPriceIndex.record(savedBid);
+                itemFacetCounter.updatePrice(itemId, savedBid.getBidAmount());
+                itemCache.evict(itemId);
+                return savedBid;
+            }
+
+
+            if (attempt == MAX_BID_ATTEMPTS) {
+                throw new ServiceException("The item changed while placing the bid, please try again.", new RuntimeException());
+            }
+
+
+            Item reloaded = itemRepository.findById(itemId)
+                    .orElseThrow(() -> new EntityNotFoundException("Item not found"));
+            if (!reloaded.getAuctionStatus().equals(AuctionStatus.ACTIVE)) {
+                throw new IllegalArgumentException("Bidding is only allowed when the auction is ACTIVE.");
+            }
+            // The row was moved past us, e.g. by another node, so the price we checked against is stale.
+            currentPriceIndex.evict(itemId);
+            checkPrice(new BidContext(itemId, customer.getId(), amount, null, id -> reloaded, userService::getIdentity));
+            item = reloaded;
         }
-        bidRepository.deleteById(bidId);
     }
-}
 
 
+    private static Bid newBid(Item item, User customer, User seller, BigDecimal amount) {
+        return Bid.builder()
+                .item(item)
+                .customer(customer)
+                .seller(seller)
+                .bidAmount(amount)
+                .bidTime(LocalDateTime.now())
+                .build();
+    }
+
+
+    public void deleteBid(Long bidId) {
+        bidJournalWriter.awaitPersisted();
+        Bid bid = bidRepository.findById(bidId)
+                .orElseThrow(() -> new EntityNotFoundException("Bid not found."));
+        bidSequencer.sequence(bid.getItem().getId(), () -> {
+            bidRepository.delete(bid);
+            itemRepository.touch(bid.getItem().getId());
+            currentPriceIndex.evict(bid.getItem().getId());
+            itemCache.evict(bid.getItem().getId());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package auction.services;
+
+import auction.entities.DTO.CacheStatsDTO;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.enums.Role;
+import auction.exceptions.ServiceException;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CacheStatsService {
+
+    private final CacheManager cacheManager;
+
+    public List<CacheStatsDTO> getStats(UserPrincipal principal) {
+        if (principal == null || !principal.hasRole(Role.ADMIN)) {
+            throw new ServiceException("Only admins can view cache statistics", new RuntimeException());
+        }
+
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats counters = cache.getNativeCache().stats();
+                stats.add(new CacheStatsDTO(name, cache.getNativeCache().estimatedSize(),
+                        counters.hitCount(), counters.missCount(), counters.hitRate(), counters.evictionCount()));
+            }
+        }
+        return stats;
+    }
+}
@@ -1,11 +1,16 @@
 package auction.services;
 
+import auction.configs.CacheConfig;
 import auction.entities.Category;
+import auction.entities.ChangeCounter;
 import auction.entities.utils.MessageUtils;
 import auction.exceptions.ServiceException;
 import auction.repositories.CategoryRepository;
+import auction.repositories.ChangeCounterRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,8 +22,25 @@ import java.util.List;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex itemSearchIndex;
 
-    public List<Category> getAllCategories() {
+    /**
+     * Categories have no version column; every write moves a persisted counter instead,
+     * so all nodes agree on the version of the list.
+     */
+    public long getVersion() {
+        return changeCounterRepository.findVersion(ChangeCounter.CATEGORIES).orElse(0L);
+    }
+
+    public static String getETag(long version) {
+        return "categories-" + version;
+    }
+
+    // Cached per version, so a node never answers with a list older than the version it tags it with
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'all-' + #version")
+    public List<Category> getAllCategories(long version) {
         try {
             return categoryRepository.findAll();
         } catch (Exception e) {
@@ -26,6 +48,7 @@ public class CategoryService {
         }
     }
 
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id")
     public Category getById(Long id) {
         return categoryRepository.findById(id).orElseThrow(() ->
                 new ServiceException(MessageUtils.notFound("Category"), new RuntimeException("Category not found")));
@@ -38,21 +61,28 @@ public class CategoryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public void save(Category category) {
         try {
             categoryRepository.save(category);
+            changeCounterRepository.increment(ChangeCounter.CATEGORIES);
             log.info(MessageUtils.saveSuccess("Category"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.saveError("Category"), e);
         }
     }
 
+    // Item summaries and details carry the category name.
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public void update(Long id, Category categoryDetails) {
         try {
             Category existingCategory = getById(id);
             existingCategory.setName(categoryDetails.getName());
             categoryRepository.save(existingCategory);
+            itemCache.evictAll();
+            itemSearchIndex.reindexCategory(id);
+            changeCounterRepository.increment(ChangeCounter.CATEGORIES);
             log.info(MessageUtils.updateSuccess("Category"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.updateError("Category"), e);
@@ -60,10 +90,12 @@ public class CategoryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public void delete(Long id) {
         try {
             Category category = getById(id);
             categoryRepository.delete(category);
+            changeCounterRepository.increment(ChangeCounter.CATEGORIES);
             log.info(MessageUtils.deleteSuccess("Category"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.deleteError("Category"), e);
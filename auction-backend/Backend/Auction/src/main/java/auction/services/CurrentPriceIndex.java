@@ -0,0 +1,88 @@
+package auction.services;
+
+import auction.entities.Bid;
+import auction.repositories.BidRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the current high bid of the items being bid on, so placing a bid does not
+ * need to read the bid history. An item is seeded from the database the first time
+ * it is requested, kept up to date by {@link #record(Bid)} afterwards and dropped
+ * once its auction is settled.
+ * <p>
+ * Seeding runs outside the map's locks so the queries never hold up other items;
+ * callers already serialise the bids of one item through its bid lock.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentPriceIndex {
+
+    private final BidRepository bidRepository;
+
+    private final ConcurrentMap<Long, CurrentPrice> prices = new ConcurrentHashMap<>();
+
+    public CurrentPrice get(Long itemId) {
+        CurrentPrice price = prices.get(itemId);
+        if (price != null) {
+            return price;
+        }
+        CurrentPrice loaded = load(itemId);
+        CurrentPrice raced = prices.putIfAbsent(itemId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Record a bid that has just been saved. Lower bids never replace the current high bid.
+     * An item that is not held is left to be seeded, with this bid, on its next access.
+     */
+    public void record(Bid bid) {
+        prices.computeIfPresent(bid.getItem().getId(), (itemId, current) -> current.with(bid));
+    }
+
+    /**
+     * Drop an item so it is reseeded from the database on next access, e.g. after a bid
+     * was deleted, or not held any longer once its auction is settled.
+     */
+    public void evict(Long itemId) {
+        prices.remove(itemId);
+    }
+
+    private CurrentPrice load(Long itemId) {
+        Optional<Bid> highest = bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(itemId);
+        long bidCount = bidRepository.countByItemId(itemId);
+        return highest
+                .map(bid -> new CurrentPrice(bid.getId(), bid.getBidAmount(), bid.getCustomer().getId(), bidCount))
+                .orElse(CurrentPrice.EMPTY);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CurrentPrice {
+
+        static final CurrentPrice EMPTY = new CurrentPrice(null, null, null, 0);
+
+        private final Long bidId;
+        private final BigDecimal amount;
+        private final Long bidderId;
+        private final long bidCount;
+
+        public boolean hasBids() {
+            return bidId != null;
+        }
+
+        CurrentPrice with(Bid bid) {
+            if (amount != null && bid.getBidAmount().compareTo(amount) <= 0) {
+                return new CurrentPrice(bidId, amount, bidderId, bidCount + 1);
+            }
+            return new CurrentPrice(bid.getId(), bid.getBidAmount(), bid.getCustomer().getId(), bidCount + 1);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package auction.services;
+
+import auction.entities.enums.AuctionStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The pending lifecycle transitions of all auctions, ordered by the time they fall due.
+ * <p>
+ * An item has at most one deadline per target status. The deadlines live in a concurrent
+ * skip list, so putting a new one (which replaces the old one) or removing one takes
+ * O(log n) and never scans the other auctions; a soft-close extension is just a put.
+ * A single consumer waits in {@link #awaitDue} and is woken when an earlier deadline arrives.
+ */
+public class DeadlineIndex {
+
+    private static final Comparator<Deadline> BY_DUE_TIME = Comparator.comparingLong(Deadline::dueMillis)
+            .thenComparing(Deadline::itemId)
+            .thenComparing(Deadline::target);
+
+    private final ConcurrentSkipListSet<Deadline> byTime = new ConcurrentSkipListSet<>(BY_DUE_TIME);
+    private final Map<Key, Deadline> byItem = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition earlier = lock.newCondition();
+
+    /**
+     * Set when the item moves to the target status, replacing its previous deadline for it.
+     */
+    public void put(Long itemId, AuctionStatus target, LocalDateTime at) {
+        Deadline deadline = new Deadline(itemId, target, at,
+                at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        byItem.compute(new Key(itemId, target), (key, previous) -> {
+            if (previous != null) {
+                byTime.remove(previous);
+            }
+            byTime.add(deadline);
+            return deadline;
+        });
+        if (deadline.equals(first())) {
+            lock.lock();
+            try {
+                earlier.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void remove(Long itemId, AuctionStatus target) {
+        Deadline deadline = byItem.remove(new Key(itemId, target));
+        if (deadline != null) {
+            byTime.remove(deadline);
+        }
+    }
+
+    public void remove(Long itemId) {
+        for (AuctionStatus target : AuctionStatus.values()) {
+            remove(itemId, target);
+        }
+    }
+
+    public void clear() {
+        byItem.clear();
+        byTime.clear();
+    }
+
+    public int size() {
+        return byItem.size();
+    }
+
+    /**
+     * Take every deadline that is already due, earliest first.
+     */
+    public List<Deadline> drainDue() {
+        List<Deadline> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Deadline first;
+        while ((first = first()) != null && first.dueMillis() <= now) {
+            // Only taken if it was not replaced in the meantime; a replacement removes it from the set itself.
+            if (byItem.remove(new Key(first.itemId(), first.target()), first)) {
+                due.add(first);
+            }
+            byTime.remove(first);
+        }
+        return due;
+    }
+
+    /**
+     * Wait until at least one deadline is due and take all that are.
+     */
+    public List<Deadline> awaitDue() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                List<Deadline> due = drainDue();
+                if (!due.isEmpty()) {
+                    return due;
+                }
+                Deadline next = first();
+                if (next == null) {
+                    earlier.await();
+                } else {
+                    earlier.await(next.dueMillis() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Deadline first() {
+        try {
+            return byTime.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    public record Deadline(Long itemId, AuctionStatus target, LocalDateTime at, long dueMillis) {
+    }
+
+    private record Key(Long itemId, AuctionStatus target) {
+    }
+}
@@ -0,0 +1,101 @@
+package auction.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves images that are still stored as base64 data URIs in {@code items.image_base64}
+ * into the {@link ImageStore} and keeps only their hash on the row. The copies in
+ * {@code bids.image_base64} are cleared. Rows are handled a chunk at a time, and each
+ * row is cleared as soon as its image is on disk, so an interrupted run just continues
+ * the next time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageMigrationTask {
+
+    private static final int CHUNK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
+
+    @Value("${auction.images.migrate-on-startup:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    public int migrate() {
+        int moved = 0;
+        if (hasColumn("items", "image_base64")) {
+            long lastId = 0;
+            List<Map<String, Object>> rows;
+            do {
+                rows = jdbcTemplate.queryForList(
+                        "SELECT item_id, image_base64 FROM items " +
+                                "WHERE image_base64 IS NOT NULL AND item_id > ? ORDER BY item_id LIMIT " + CHUNK_SIZE,
+                        lastId);
+                for (Map<String, Object> row : rows) {
+                    lastId = ((Number) row.get("item_id")).longValue();
+                    String hash;
+                    try {
+                        hash = imageStore.store(decode((String) row.get("image_base64")));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Item {} has an image that cannot be stored, left in the database: {}", lastId, e.getMessage());
+                        continue;
+                    }
+                    jdbcTemplate.update("UPDATE items SET image_hash = ?, image_base64 = NULL WHERE item_id = ?", hash, lastId);
+                    imageVariantService.generate(hash);
+                    moved++;
+                }
+            } while (rows.size() == CHUNK_SIZE);
+        }
+        if (hasColumn("bids", "image_base64")) {
+            jdbcTemplate.update("UPDATE bids SET image_base64 = NULL WHERE image_base64 IS NOT NULL");
+        }
+        if (moved > 0) {
+            log.info("Moved {} item images from the database to the image store.", moved);
+        }
+        return moved;
+    }
+
+    // Accepts both data URIs and plain base64.
+    private static byte[] decode(String value) {
+        int comma = value.indexOf(',');
+        String base64 = value.startsWith("data:") && comma >= 0 ? value.substring(comma + 1) : value;
+        return Base64.getMimeDecoder().decode(base64);
+    }
+
+    private boolean hasColumn(String table, String column) {
+        Boolean found = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{column, column.toUpperCase()}) {
+                try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, name)) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(found);
+    }
+}
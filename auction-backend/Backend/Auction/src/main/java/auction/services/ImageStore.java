@@ -0,0 +1,181 @@
+package auction.services;
+
+import auction.entities.utils.MessageUtils;
+import auction.exceptions.ServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps uploaded images on disk under the SHA-256 hash of their content.
+ * <p>
+ * An upload is streamed into a temporary file while it is hashed and then moved to
+ * {@code <dir>/<first two hex digits>/<hash>}. Identical images end up in the same
+ * file, so a re-upload only costs the hashing. Files are never changed once written,
+ * which is what lets them be served as immutable. Downscaled variants are kept next
+ * to the original as {@code <hash>-<width>}.
+ * <p>
+ * Only JPEG, PNG, GIF and WebP files are accepted, told apart by their first bytes, and
+ * only those are ever served with an image type.
+ */
+@Service
+public class ImageStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String UNKNOWN_TYPE = "application/octet-stream";
+    private static final int HEADER_BYTES = 12;
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87 = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89 = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path root;
+
+    public ImageStore(@Value("${auction.images.dir:data/images}") String dir) {
+        this.root = Path.of(dir).toAbsolutePath();
+    }
+
+    /**
+     * Store the image and return its hash. Throws {@link IllegalArgumentException} if the
+     * content is not an image of one of the accepted types.
+     */
+    public String store(InputStream in) {
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, "upload-", ".tmp");
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                try (DigestInputStream hashing = new DigestInputStream(in, digest)) {
+                    Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String type = imageType(temp).orElseThrow(() -> new IllegalArgumentException(
+                        "Only JPEG, PNG, GIF and WebP images can be uploaded."));
+                if (!isDecodable(temp, type)) {
+                    throw new IllegalArgumentException("The uploaded file is not a valid image.");
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                Path target = pathOf(hash);
+                if (Files.exists(target)) {
+                    return hash;
+                }
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Someone stored the same image at the same moment; theirs is identical.
+                }
+                return hash;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new ServiceException(MessageUtils.saveError("Image"), e);
+        }
+    }
+
+    public String store(byte[] bytes) {
+        return store(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * The stored file for the hash, if there is one.
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Where the downscaled copy of the image at the given width lives, whether or not it exists yet.
+     */
+    public Path variantPath(String hash, int width) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash + "-" + width);
+    }
+
+    public Optional<Path> findVariant(String hash, int width) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = variantPath(hash, width);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * The image type of the file from its first bytes; anything else is served as opaque bytes.
+     */
+    public String contentType(Path path) {
+        return imageType(path).orElse(UNKNOWN_TYPE);
+    }
+
+    private static Optional<String> imageType(Path path) {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(path)) {
+            header = in.readNBytes(HEADER_BYTES);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (startsWith(header, 0, JPEG)) {
+            return Optional.of("image/jpeg");
+        }
+        if (startsWith(header, 0, PNG)) {
+            return Optional.of("image/png");
+        }
+        if (startsWith(header, 0, GIF87) || startsWith(header, 0, GIF89)) {
+            return Optional.of("image/gif");
+        }
+        if (startsWith(header, 0, RIFF) && startsWith(header, 8, WEBP)) {
+            return Optional.of("image/webp");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+        return header.length >= offset + magic.length
+                && Arrays.equals(header, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    // Reads the dimensions only; WebP has no reader in the JDK, so its first bytes have to do.
+    private static boolean isDecodable(Path path, String type) {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByMIMEType(type);
+        if (!readers.hasNext()) {
+            return true;
+        }
+        ImageReader reader = readers.next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            reader.setInput(in, true, true);
+            return reader.getWidth(0) > 0 && reader.getHeight(0) > 0;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,222 @@
+package auction.services;
+
+import auction.entities.utils.ImageUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Produces downscaled copies of stored images for cards and galleries, so list
+ * pages do not download full-size uploads.
+ * <p>
+ * Work runs on a small background pool, never on the request thread. A variant is
+ * generated at most once: the files are content-addressed and never change, a hash
+ * already being worked on is not queued again, and variants already on disk are
+ * skipped. Images no wider than a variant are linked instead of re-encoded.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    public static final List<Integer> WIDTHS = List.of(ImageUtils.SMALL, ImageUtils.MEDIUM, ImageUtils.LARGE);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ImageStore imageStore;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(ImageStore imageStore,
+                               @Value("${auction.images.variant-threads:2}") int threads,
+                               @Value("${auction.images.variant-queue-size:1000}") int queueSize) {
+        this.imageStore = imageStore;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queue the variants of the image for generation unless they exist or are being made.
+     */
+    public void generate(String hash) {
+        if (hasAllVariants(hash) || !inFlight.add(hash)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    createVariants(hash);
+                } catch (Exception e) {
+                    log.warn("Could not create variants of image {}: {}", hash, e.getMessage());
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The queue is full; the image is queued again the next time a variant is asked for.
+            inFlight.remove(hash);
+        }
+    }
+
+    private boolean hasAllVariants(String hash) {
+        for (int width : WIDTHS) {
+            if (imageStore.findVariant(hash, width).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void createVariants(String hash) throws IOException {
+        Path original = imageStore.find(hash).orElse(null);
+        if (original == null) {
+            return;
+        }
+
+        BufferedImage source;
+        int originalWidth;
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                log.warn("Image {} is not in a readable format; no variants made.", hash);
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                originalWidth = reader.getWidth(0);
+                // Decode at no more than about twice the largest width to keep big uploads out of the heap.
+                int step = Math.max(1, originalWidth / (2 * WIDTHS.get(WIDTHS.size() - 1)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        for (int width : WIDTHS) {
+            Path target = imageStore.variantPath(hash, width);
+            if (Files.exists(target)) {
+                continue;
+            }
+            if (width >= originalWidth) {
+                link(original, target);
+            } else {
+                write(scale(source, width), target);
+            }
+        }
+    }
+
+    // Halve the image until it is close to the target, then do one final bilinear step;
+    // a single large bilinear step would skip most of the source pixels.
+    private static BufferedImage scale(BufferedImage source, int width) {
+        boolean alpha = source.getColorModel().hasAlpha();
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) source.getHeight() * nextWidth / source.getWidth()));
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    // Opaque images become JPEGs; images with transparency stay PNGs.
+    private static void write(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            if (image.getColorModel().hasAlpha()) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void link(Path original, Path target) throws IOException {
+        try {
+            Files.createLink(target, original);
+        } catch (FileAlreadyExistsException e) {
+            // Already there.
+        } catch (UnsupportedOperationException | IOException e) {
+            Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+            try {
+                Files.copy(original, temp, StandardCopyOption.REPLACE_EXISTING);
+                move(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another worker finished the same variant first.
+        }
+    }
+}
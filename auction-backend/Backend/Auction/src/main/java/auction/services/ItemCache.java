@@ -0,0 +1,133 @@
+package auction.services;
+
+import auction.configs.CacheConfig;
+import auction.entities.ChangeCounter;
+import auction.entities.DTO.ItemDTO;
+import auction.entities.DTO.ItemSummaryDTO;
+import auction.entities.utils.MessageUtils;
+import auction.exceptions.ServiceException;
+import auction.repositories.ChangeCounterRepository;
+import auction.repositories.ItemRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of item summaries and item details. Anything that changes an
+ * item (edits, status changes, bids, lifecycle transitions, settlement) evicts it
+ * here; renaming a category or a seller clears all items.
+ */
+@Component
+public class ItemCache {
+
+    private final ItemRepository itemRepository;
+    private final ChangeCounterRepository changeCounterRepository;
+    private final Cache summaries;
+    private final Cache details;
+    // The labels version the cached items were loaded under, as far as this node knows
+    private final AtomicLong labelsVersion = new AtomicLong(-1);
+
+    public ItemCache(ItemRepository itemRepository, ChangeCounterRepository changeCounterRepository,
+                     CacheManager cacheManager) {
+        this.itemRepository = itemRepository;
+        this.changeCounterRepository = changeCounterRepository;
+        this.summaries = cacheManager.getCache(CacheConfig.ITEM_SUMMARIES);
+        this.details = cacheManager.getCache(CacheConfig.ITEM_DETAILS);
+    }
+
+    /**
+     * Summaries of the given items; the ones not cached are loaded with a single query.
+     */
+    public List<ItemSummaryDTO> getSummaries(Collection<Long> itemIds) {
+        List<ItemSummaryDTO> found = new ArrayList<>(itemIds.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            ItemSummaryDTO summary = summaries.get(itemId, ItemSummaryDTO.class);
+            if (summary != null) {
+                found.add(summary);
+            } else {
+                missing.add(itemId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ItemSummaryDTO summary : itemRepository.findSummariesByIds(missing)) {
+                summaries.put(summary.getId(), summary);
+                found.add(summary);
+            }
+        }
+        return found;
+    }
+
+    public ItemDTO getDetails(Long itemId) {
+        return getDetails(itemId, 0);
+    }
+
+    /**
+     * Details of the item at the given row version or later. A cached copy from before
+     * it, e.g. one this node kept while another node changed the item, is reloaded.
+     */
+    public ItemDTO getDetails(Long itemId, long minVersion) {
+        ItemDTO item = details.get(itemId, ItemDTO.class);
+        if (item == null || item.getVersion() == null || item.getVersion() < minVersion) {
+            item = itemRepository.findDetailsById(itemId)
+                    .map(ItemDTO::new)
+                    .orElseThrow(() -> new ServiceException(MessageUtils.notFound("Item"), new RuntimeException("Item not found")));
+            details.put(itemId, item);
+        }
+        return item;
+    }
+
+    /**
+     * Drop the item now and, when called inside a transaction, again after it commits,
+     * so a read racing the write cannot put the old state back for a whole TTL.
+     */
+    public void evict(Long itemId) {
+        evictNow(itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(itemId);
+                }
+            });
+        }
+    }
+
+    public void evict(Collection<Long> itemIds) {
+        itemIds.forEach(this::evict);
+    }
+
+    /**
+     * Drop all items because a category or user name shown with every item changed. The
+     * persisted labels version moves with the caller's transaction, so other nodes notice
+     * the change through {@link #checkLabelsVersion} and the item ETags change everywhere.
+     */
+    public void evictAll() {
+        changeCounterRepository.increment(ChangeCounter.ITEM_LABELS);
+        summaries.clear();
+        details.clear();
+    }
+
+    /**
+     * Clears the cache if the labels version read from the database is not the one the
+     * cached items were loaded under, e.g. after a rename on another node.
+     */
+    public void checkLabelsVersion(long version) {
+        if (labelsVersion.getAndSet(version) != version) {
+            summaries.clear();
+            details.clear();
+        }
+    }
+
+    private void evictNow(Long itemId) {
+        summaries.evict(itemId);
+        details.evict(itemId);
+    }
+}
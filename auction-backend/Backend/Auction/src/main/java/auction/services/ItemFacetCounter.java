@@ -0,0 +1,141 @@
+package auction.services;
+
+import auction.entities.DTO.FacetCountsDTO;
+import auction.entities.DTO.ItemFacetRow;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.PriceBand;
+import auction.repositories.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps item counts per category, item status, auction status and price band in memory.
+ * <p>
+ * Items are counted per combination of the four values, and the last known combination
+ * of every item is kept so a change moves it from one count to another. Reading the
+ * facets adds up the combinations, whose number depends on how many categories there
+ * are, not on how many items. The counts are rebuilt from the database at startup and
+ * kept current by the item, bid, lifecycle and settlement write paths.
+ */
+@Slf4j
+@Service
+public class ItemFacetCounter {
+
+    private final ItemRepository itemRepository;
+    private final boolean rebuildOnStartup;
+
+    private final Map<Long, FacetKey> items = new HashMap<>();
+    private final Map<FacetKey, Long> combinations = new HashMap<>();
+
+    public ItemFacetCounter(ItemRepository itemRepository,
+                            @Value("${auction.facets.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.itemRepository = itemRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public synchronized FacetCountsDTO counts(ItemStatus status, Long categoryId) {
+        long total = 0;
+        Map<Long, Long> categories = new TreeMap<>();
+        Map<ItemStatus, Long> statuses = new EnumMap<>(ItemStatus.class);
+        Map<AuctionStatus, Long> auctionStatuses = new EnumMap<>(AuctionStatus.class);
+        Map<PriceBand, Long> priceBands = new EnumMap<>(PriceBand.class);
+
+        for (Map.Entry<FacetKey, Long> entry : combinations.entrySet()) {
+            FacetKey key = entry.getKey();
+            long count = entry.getValue();
+            boolean statusMatches = status == null || status == key.status();
+            boolean categoryMatches = categoryId == null || categoryId.equals(key.categoryId());
+
+            if (statusMatches && key.categoryId() != null) {
+                categories.merge(key.categoryId(), count, Long::sum);
+            }
+            if (categoryMatches && key.status() != null) {
+                statuses.merge(key.status(), count, Long::sum);
+            }
+            if (statusMatches && categoryMatches) {
+                total += count;
+                if (key.auctionStatus() != null) {
+                    auctionStatuses.merge(key.auctionStatus(), count, Long::sum);
+                }
+                priceBands.merge(key.priceBand(), count, Long::sum);
+            }
+        }
+        return new FacetCountsDTO(total, categories, statuses, auctionStatuses, priceBands);
+    }
+
+    public synchronized void record(ItemFacetRow row) {
+        move(row.getId(), new FacetKey(row.getCategoryId(), row.getStatus(), row.getAuctionStatus(),
+                PriceBand.of(row.getCurrentPrice())));
+    }
+
+    public synchronized void remove(Long itemId) {
+        move(itemId, null);
+    }
+
+    public synchronized void updateStatus(Long itemId, ItemStatus status) {
+        FacetKey key = items.get(itemId);
+        if (key != null) {
+            move(itemId, new FacetKey(key.categoryId(), status, key.auctionStatus(), key.priceBand()));
+        }
+    }
+
+    public synchronized void updatePrice(Long itemId, BigDecimal currentPrice) {
+        FacetKey key = items.get(itemId);
+        if (key != null) {
+            move(itemId, new FacetKey(key.categoryId(), key.status(), key.auctionStatus(), PriceBand.of(currentPrice)));
+        }
+    }
+
+    /**
+     * Apply a bulk auction status transition to the items that were in the {@code from} state,
+     * the same condition the lifecycle update puts on the rows.
+     */
+    public synchronized void updateAuctionStatus(Collection<Long> itemIds, AuctionStatus from, AuctionStatus to) {
+        for (Long itemId : itemIds) {
+            FacetKey key = items.get(itemId);
+            if (key != null && key.auctionStatus() == from) {
+                move(itemId, new FacetKey(key.categoryId(), key.status(), to, key.priceBand()));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try (Stream<ItemFacetRow> rows = itemRepository.streamFacetRows()) {
+            rows.forEach(this::record);
+        }
+        synchronized (this) {
+            log.info("Catalog facets built: {} items in {} combinations.", items.size(), combinations.size());
+        }
+    }
+
+    private void move(Long itemId, FacetKey to) {
+        FacetKey from = to == null ? items.remove(itemId) : items.put(itemId, to);
+        if (from != null) {
+            combinations.computeIfPresent(from, (key, count) -> count == 1 ? null : count - 1);
+        }
+        if (to != null) {
+            combinations.merge(to, 1L, Long::sum);
+        }
+    }
+
+    private record FacetKey(Long categoryId, ItemStatus status, AuctionStatus auctionStatus, PriceBand priceBand) {
+    }
+}
@@ -0,0 +1,267 @@
+package auction.services;
+
+import auction.entities.DTO.ItemSearchRow;
+import auction.entities.enums.ItemStatus;
+import auction.repositories.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over item names, descriptions and category names.
+ * <p>
+ * Text is split on anything that is not a letter or digit, lowercased and stripped of
+ * accents. Each term maps to the items containing it with a weight: a term in the name
+ * counts three times, in the category twice, in the description once. The terms are
+ * kept sorted, so a query word also matches every term it is a prefix of.
+ * <p>
+ * Every query word has to match. An item scores the weight of each match times the
+ * term's inverse document frequency, so rare words decide the order more than common
+ * ones; prefix matches count half. The index is rebuilt from the database at startup
+ * and kept current by the services that change items.
+ */
+@Slf4j
+@Service
+public class ItemSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+    // Shorter words only match whole terms; "a" would otherwise expand to half the vocabulary.
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final ItemRepository itemRepository;
+    private final boolean rebuildOnStartup;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${auction.search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.itemRepository = itemRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * The ids of the items matching every word of the query, best match first.
+     */
+    public List<Long> search(String query, ItemStatus status, Long categoryId, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String word : words) {
+                Map<Long, Double> wordScores = score(word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((itemId, score) -> score + wordScores.get(itemId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .filter(entry -> matches(documents.get(entry.getKey()), status, categoryId))
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(ItemSearchRow row) {
+        Document document = new Document(terms(row), row.getCategoryId(), row.getStatus());
+        lock.writeLock().lock();
+        try {
+            removeDocument(row.getId());
+            documents.put(row.getId(), document);
+            document.terms.forEach((term, weight) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(row.getId(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record a status change made without going through {@link #index}, e.g. by settlement.
+     */
+    public void updateStatus(Long itemId, ItemStatus status) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.get(itemId);
+            if (document != null) {
+                document.status = status;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read the items of the category from the database, after its name changed.
+     */
+    @Transactional(readOnly = true)
+    public void reindexCategory(Long categoryId) {
+        try (Stream<ItemSearchRow> rows = itemRepository.streamSearchRows(categoryId)) {
+            rows.forEach(this::index);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try (Stream<ItemSearchRow> rows = itemRepository.streamSearchRows(null)) {
+            rows.forEach(this::index);
+        }
+        log.info("Search index built: {} items, {} terms in {} ms.",
+                size(), terms(), System.currentTimeMillis() - started);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int terms() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score of every item for one query word: the exact term, or the terms it is a prefix of.
+    private Map<Long, Double> score(String word) {
+        Map<Long, Double> scores = new HashMap<>();
+        Map<Long, Integer> exact = postings.get(word);
+        if (exact != null) {
+            double idf = idf(exact.size());
+            exact.forEach((itemId, weight) -> scores.put(itemId, weight * idf));
+        }
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            for (Map.Entry<String, Map<Long, Integer>> entry
+                    : postings.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+                double idf = idf(entry.getValue().size());
+                entry.getValue().forEach((itemId, weight) ->
+                        scores.merge(itemId, weight * idf * PREFIX_FACTOR, Math::max));
+            }
+        }
+        return scores;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (double) documents.size() / documentFrequency);
+    }
+
+    private static boolean matches(Document document, ItemStatus status, Long categoryId) {
+        return (status == null || document.status == status)
+                && (categoryId == null || categoryId.equals(document.categoryId));
+    }
+
+    private void removeDocument(Long itemId) {
+        Document old = documents.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms.keySet()) {
+            Map<Long, Integer> items = postings.get(term);
+            if (items != null) {
+                items.remove(itemId);
+                if (items.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> terms(ItemSearchRow row) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, row.getName(), NAME_WEIGHT);
+        addTerms(terms, row.getCategoryName(), CATEGORY_WEIGHT);
+        addTerms(terms, row.getDescription(), DESCRIPTION_WEIGHT);
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Integer::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Document {
+
+        private final Map<String, Integer> terms;
+        private final Long categoryId;
+        private ItemStatus status;
+
+        private Document(Map<String, Integer> terms, Long categoryId, ItemStatus status) {
+            this.terms = terms;
+            this.categoryId = categoryId;
+            this.status = status;
+        }
+    }
+}
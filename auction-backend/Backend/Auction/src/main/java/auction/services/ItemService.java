@@ -1,26 +1,43 @@
 package auction.services;
 
 import auction.entities.Category;
+import auction.entities.DTO.FacetCountsDTO;
 import auction.entities.DTO.ItemDTO;
+import auction.entities.DTO.ItemFacetRow;
+import auction.entities.DTO.ItemSearchRow;
+import auction.entities.DTO.ItemSummaryDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.Item;
 import auction.entities.RO.ItemRO;
 import auction.entities.User;
 import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemSort;
 import auction.entities.enums.ItemStatus;
 import auction.entities.enums.Role;
+import auction.entities.response.CursorPage;
+import auction.entities.utils.CursorUtils;
 import auction.entities.utils.MessageUtils;
 import auction.exceptions.ServiceException;
 import auction.repositories.CategoryRepository;
 import auction.repositories.ItemRepository;
+import auction.repositories.ItemRepository.ETagVersions;
 import auction.repositories.UserRepository;
-import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -30,66 +47,189 @@ public class ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final AuctionLifecycleScheduler auctionLifecycleScheduler;
+    private final ItemCache itemCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemFacetCounter itemFacetCounter;
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
 
-    public List<Item> getAll() {
+    public CursorPage<ItemSummaryDTO> getAll(ItemSort sort, String cursor, Integer limit) {
+        return getAllByFilter(null, null, sort, cursor, limit);
+    }
+
+    /**
+     * One page of item summaries in the given order. The cursor carries the sort key of
+     * the last row of the previous page, so each page is a range read on the sort index
+     * instead of an offset scan.
+     */
+    public CursorPage<ItemSummaryDTO> getAllByFilter(ItemStatus status, Long categoryId,
+                                                     ItemSort sort, String cursor, Integer limit) {
+        int pageSize = CursorUtils.pageSize(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        String[] keys = CursorUtils.decode(cursor, sort.name(), sort == ItemSort.NEWEST ? 1 : 2);
         try {
-            return itemRepository.findAll();
+            return switch (sort) {
+                case ENDING_SOONEST -> CursorPage.of(
+                        itemRepository.findSummariesEndingSoonest(status, categoryId,
+                                keys == null ? null : LocalDateTime.parse(keys[0]),
+                                keys == null ? null : Long.valueOf(keys[1]), fetch),
+                        pageSize, item -> CursorUtils.encode(sort.name(), item.getEndTime(), item.getId()));
+                case NEWEST -> CursorPage.of(
+                        itemRepository.findSummariesNewest(status, categoryId,
+                                keys == null ? null : Long.valueOf(keys[0]), fetch),
+                        pageSize, item -> CursorUtils.encode(sort.name(), item.getId()));
+                case HIGHEST_PRICE -> CursorPage.of(
+                        itemRepository.findSummariesHighestPrice(status, categoryId,
+                                keys == null ? null : new BigDecimal(keys[0]),
+                                keys == null ? null : Long.valueOf(keys[1]), fetch),
+                        pageSize, item -> CursorUtils.encode(sort.name(), item.getCurrentPrice(), item.getId()));
+            };
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.retrieveError("Items"), e);
         }
     }
 
-    public List<Item> getAllByFilter(ItemStatus status, Long categoryId) {
+    /**
+     * Items saved before current prices were tracked get their starting price, so that
+     * sorting by price never meets a missing value.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillMissingCurrentPrices() {
+        int filled = itemRepository.fillMissingCurrentPrices();
+        if (filled > 0) {
+            log.info("Filled the current price of {} items.", filled);
+        }
+    }
+
+    /**
+     * Strong ETag for the item and its bid history, or null if there is no such item.
+     * Every change to the item or its bids moves the version column forward, so the tag
+     * only costs a primary key lookup of one column.
+     */
+    public String getETag(Long id) {
+        return getETagVersions(id).map(versions -> getETag(id, versions)).orElse(null);
+    }
+
+    public Optional<ETagVersions> getETagVersions(Long id) {
+        Optional<ETagVersions> versions = itemRepository.findETagVersionsById(id);
+        versions.ifPresent(found -> itemCache.checkLabelsVersion(found.getLabelsVersion()));
+        return versions;
+    }
+
+    public static String getETag(Long id, ETagVersions versions) {
+        return "item-" + id + "-" + versions.getVersion() + "-" + versions.getLabelsVersion();
+    }
+
+    /**
+     * Items matching every word of the query, best match first.
+     */
+    public List<ItemSummaryDTO> search(String query, ItemStatus status, Long categoryId, Integer limit) {
         try {
-            return itemRepository.findAllByOptionalFilters(status, categoryId);
+            List<Long> ids = itemSearchIndex.search(query, status, categoryId, CursorUtils.pageSize(limit));
+            Map<Long, ItemSummaryDTO> summaries = new HashMap<>();
+            for (ItemSummaryDTO summary : itemCache.getSummaries(ids)) {
+                summaries.put(summary.getId(), summary);
+            }
+            // An item deleted after the lookup has no summary and is left out.
+            return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
         } catch (Exception e) {
-            throw new ServiceException(MessageUtils.retrieveError("Filtered Items"), e);
+            throw new ServiceException(MessageUtils.retrieveError("Items"), e);
         }
     }
 
+    /**
+     * Item counts per category, status, auction status and price band, from the in-memory counters.
+     */
+    public FacetCountsDTO getFacets(ItemStatus status, Long categoryId) {
+        return itemFacetCounter.counts(status, categoryId);
+    }
+
+    public ItemDTO getItemDetails(Long id) {
+        return itemCache.getDetails(id);
+    }
+
+    /**
+     * The item's details no older than the version its ETag was made from, so a tag is
+     * never sent with a body from before it.
+     */
+    public ItemDTO getItemDetails(Long id, long version) {
+        return itemCache.getDetails(id, version);
+    }
+
     public Item getItemById(Long id) {
         return itemRepository.findById(id)
                 .orElseThrow(() -> new ServiceException(MessageUtils.notFound("Item"), new RuntimeException("Item not found")));
     }
 
     @Transactional
-    public void save(ItemRO itemRO, HttpSession session) {
+    /**
+     * Add an item with its image, if there is one. The image is only stored once the
+     * caller and the item have been checked, and its variants only after the item is saved.
+     */
+    public void save(ItemRO itemRO, InputStream image, UserPrincipal principal) {
         try {
-            User loggedInUser = (User) session.getAttribute("loggedInUser");
-            if (loggedInUser == null || loggedInUser.getRole() != Role.SELLER) {
+            if (principal == null || !principal.hasRole(Role.SELLER)) {
                 throw new ServiceException("Only sellers can add items", new RuntimeException());
             }
 
             Category category = categoryRepository.findById(itemRO.getCategoryId())
                     .orElseThrow(() -> new ServiceException("Category not found", new RuntimeException()));
 
-            Item item = itemRO.toEntity(loggedInUser, category);
-            item.setImageBase64(itemRO.getImageBase64());
+            Item item = itemRO.toEntity(userRepository.getReferenceById(principal.getId()), category);
+            checkPrices(item);
+            if (image != null) {
+                item.setImageHash(imageStore.store(image));
+            }
 
+            item.setCurrentPrice(item.getStartingPrice());
             item.setStatus(ItemStatus.PENDING);
             item.setAuctionStatus(AuctionStatus.NOT_STARTED);
 
             itemRepository.save(item);
+            itemSearchIndex.index(new ItemSearchRow(item));
+            itemFacetCounter.record(new ItemFacetRow(item));
+            auctionLifecycleScheduler.schedule(item);
+            if (image != null) {
+                imageVariantService.generate(item.getImageHash());
+            }
             log.info(MessageUtils.saveSuccess("Item"));
+        } catch (IllegalArgumentException e) {
+            // A rejected image, reported as such
+            throw e;
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.saveError("Item"), e);
         }
     }
 
+    private static void checkPrices(Item item) {
+        BigDecimal startingPrice = item.getStartingPrice();
+        if (item.getReservePrice() != null && item.getReservePrice().compareTo(startingPrice) < 0) {
+            throw new ServiceException("The reserve price cannot be below the starting price", new RuntimeException());
+        }
+        BigDecimal floor = item.getReservePrice() != null ? item.getReservePrice() : startingPrice;
+        if (item.getBuyNowPrice() != null && item.getBuyNowPrice().compareTo(floor) <= 0) {
+            throw new ServiceException("The buy-now price must be above the starting and reserve price", new RuntimeException());
+        }
+    }
+
     @Transactional
-    public void update(Long id, ItemRO itemRO, HttpSession session) {
+    public void update(Long id, ItemRO itemRO, UserPrincipal principal) {
         try {
-            User loggedInUser = (User) session.getAttribute("loggedInUser");
-            if (loggedInUser == null || loggedInUser.getRole() != Role.SELLER) {
+            if (principal == null || !principal.hasRole(Role.SELLER)) {
                 throw new ServiceException("Only sellers can update items", new RuntimeException());
             }
 
             Item existingItem = getItemById(id);
-            if (!existingItem.getSeller().getId().equals(loggedInUser.getId())) {
+            if (!existingItem.getSeller().getId().equals(principal.getId())) {
                 throw new ServiceException("You can only update your own items", new RuntimeException());
             }
 
             existingItem.updateFromRO(itemRO);
+            checkPrices(existingItem);
+            if (existingItem.getBidCount() == null || existingItem.getBidCount() == 0) {
+                existingItem.setCurrentPrice(existingItem.getStartingPrice());
+            }
 
             // Only update auction status if the item is APPROVED
             if (existingItem.getStartTime() != null
@@ -101,6 +241,10 @@ public class ItemService {
             }
 
             itemRepository.save(existingItem);
+            itemCache.evict(id);
+            itemSearchIndex.index(new ItemSearchRow(existingItem));
+            itemFacetCounter.record(new ItemFacetRow(existingItem));
+            auctionLifecycleScheduler.schedule(existingItem);
             log.info(MessageUtils.updateSuccess("Item"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.updateError("Item"), e);
@@ -108,10 +252,9 @@ public class ItemService {
     }
 
     @Transactional
-    public ItemDTO updateItemStatus(Long itemId, Long adminId, ItemStatus status, HttpSession session) {
+    public ItemDTO updateItemStatus(Long itemId, Long adminId, ItemStatus status, UserPrincipal principal) {
         try {
-            User loggedInAdmin = (User) session.getAttribute("loggedInUser");
-            if (loggedInAdmin == null || loggedInAdmin.getRole() != Role.ADMIN) {
+            if (principal == null || !principal.hasRole(Role.ADMIN)) {
                 throw new ServiceException("Only admins can change item status", new RuntimeException());
             }
 
@@ -135,34 +278,29 @@ public class ItemService {
             }
 
             itemRepository.save(item);
+            itemCache.evict(itemId);
+            itemSearchIndex.updateStatus(itemId, status);
+            itemFacetCounter.record(new ItemFacetRow(item));
+            auctionLifecycleScheduler.schedule(item);
             return new ItemDTO(item);
         } catch (Exception e) {
             throw new ServiceException("Failed to change item status", e);
         }
     }
 
-    @Transactional
-    public void updateAuctionStatus(HttpSession session) {
+    // Not transactional: each lifecycle update commits on its own, as on the scheduler thread, so
+    // nothing evicts caches or announces an ended auction before the change is visible.
+    public void updateAuctionStatus(UserPrincipal principal) {
         try {
             // Ensure that only an admin can update auction status
-            User loggedInUser = (User) session.getAttribute("loggedInUser");
-            if (loggedInUser == null || loggedInUser.getRole() != Role.ADMIN) {
+            if (principal == null || !principal.hasRole(Role.ADMIN)) {
                 throw new ServiceException("Only admins can update auction status", new RuntimeException());
             }
 
-            LocalDateTime now = LocalDateTime.now();
-            List<Item> items = itemRepository.findAll();
-
-            for (Item item : items) {
-                if (item.getAuctionStatus() == AuctionStatus.NOT_STARTED
-                        && item.getStartTime() != null
-                        && item.getStartTime().isBefore(now)
-                        && item.getStatus() == ItemStatus.APPROVED) {
-
-                    item.setAuctionStatus(AuctionStatus.ACTIVE);
-                    itemRepository.save(item);
-                }
-            }
+            // The lifecycle scheduler normally applies these transitions on time; this rebuilds
+            // its schedule from the database and applies whatever is overdue right away.
+            auctionLifecycleScheduler.reload();
+            auctionLifecycleScheduler.fireDue();
             log.info("Auction status updated successfully for eligible items.");
         } catch (Exception e) {
             throw new ServiceException("Error updating auction status", e);
@@ -175,6 +313,10 @@ public class ItemService {
         try {
             Item item = getItemById(id);
             itemRepository.delete(item);
+            itemCache.evict(id);
+            itemSearchIndex.remove(id);
+            itemFacetCounter.remove(id);
+            auctionLifecycleScheduler.unschedule(id);
             log.info(MessageUtils.deleteSuccess("Item"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.deleteError("Item"), e);
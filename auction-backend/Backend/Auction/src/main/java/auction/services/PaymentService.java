@@ -5,22 +5,26 @@ import auction.entities.Bid;
 import auction.entities.Payment;
 import auction.entities.User;
 import auction.entities.DTO.PaymentDTO;
+import auction.entities.DTO.PaymentSummaryDTO;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.enums.PaymentStatus;
+import auction.entities.response.CursorPage;
+import auction.entities.response.SideLoadedPage;
+import auction.entities.utils.CursorUtils;
 import auction.exceptions.ServiceException;
 import auction.repositories.BidRepository;
 import auction.repositories.PaymentRepository;
 import auction.repositories.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.servlet.http.HttpSession;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @Service
@@ -28,42 +32,44 @@ import java.util.stream.Collectors;
 public class PaymentService {
 
 
+   private static final String PAYMENT_CURSOR = "PAY";
+
+
    private final PaymentRepository paymentRepository;
    private final BidRepository bidRepository;
    private final UserRepository userRepository;
+   private final ItemCache itemCache;
 
 
-   public List<PaymentDTO> getPaymentsByCustomer(Long customerId) {
-       return paymentRepository.findByCustomerId(customerId)
-               .stream()
-               .map(PaymentDTO::new)
-               .collect(Collectors.toList());
-   }
-
-
-   // Find payments by customerId and PaymentStatus
-   public List<PaymentDTO> getPaymentsByCustomerAndStatus(Long customerId, PaymentStatus status) {
-       return paymentRepository.findByCustomerIdAndPaymentStatus(customerId, status)
-               .stream()
-               .map(PaymentDTO::new)
-               .collect(Collectors.toList());
+   // One page of a customer's payments, newest first, optionally only those with the given status
+   public CursorPage<PaymentDTO> getPaymentsByCustomer(Long customerId, PaymentStatus status, String cursor, Integer limit) {
+       int pageSize = CursorUtils.pageSize(limit);
+       List<Payment> payments = paymentRepository.findCustomerPage(customerId, status,
+               CursorUtils.decodeId(cursor, PAYMENT_CURSOR), Limit.of(pageSize + 1));
+       return CursorPage.of(payments, pageSize, payment -> CursorUtils.encode(PAYMENT_CURSOR, payment.getId()))
+               .map(PaymentDTO::new);
    }
 
 
-   // Find payments by sellerId and PaymentStatus
-   public List<PaymentDTO> getPaymentsBySellerAndStatus(Long sellerId, PaymentStatus status) {
-       return paymentRepository.findBySellerIdAndPaymentStatus(sellerId, status)
-               .stream()
-               .map(PaymentDTO::new)
-               .collect(Collectors.toList());
+   // One page of a seller's payments, newest first, optionally only those with the given status
+   public CursorPage<PaymentDTO> getPaymentsBySeller(Long sellerId, PaymentStatus status, String cursor, Integer limit) {
+       int pageSize = CursorUtils.pageSize(limit);
+       List<Payment> payments = paymentRepository.findSellerPage(sellerId, status,
+               CursorUtils.decodeId(cursor, PAYMENT_CURSOR), Limit.of(pageSize + 1));
+       return CursorPage.of(payments, pageSize, payment -> CursorUtils.encode(PAYMENT_CURSOR, payment.getId()))
+               .map(PaymentDTO::new);
    }
 
 
-   public List<PaymentDTO> getPaymentsBySeller(Long sellerId) {
-       return paymentRepository.findBySellerId(sellerId)
-               .stream()
-               .map(PaymentDTO::new)
-               .collect(Collectors.toList());
+   // Compact payment rows for a customer or a seller, with each referenced item sent once
+   public SideLoadedPage<PaymentSummaryDTO> getCompactPayments(Long customerId, Long sellerId, PaymentStatus status,
+                                                               String cursor, Integer limit) {
+       int pageSize = CursorUtils.pageSize(limit);
+       List<PaymentSummaryDTO> payments = paymentRepository.findSummaryPage(customerId, sellerId, status,
+               CursorUtils.decodeId(cursor, PAYMENT_CURSOR), Limit.of(pageSize + 1));
+       CursorPage<PaymentSummaryDTO> page = CursorPage.of(payments, pageSize,
+               payment -> CursorUtils.encode(PAYMENT_CURSOR, payment.getId()));
+       return SideLoadedPage.of(page, PaymentSummaryDTO::getItemId, itemCache::getSummaries);
    }
 
 
@@ -75,10 +81,9 @@ public class PaymentService {
 
 
    @Transactional
-   public PaymentDTO createPayment(Long bidId, HttpSession session) {
+   public PaymentDTO createPayment(Long bidId, UserPrincipal principal) {
        try {
-           User loggedInUser = (User) session.getAttribute("loggedInUser");
-           if (loggedInUser == null) {
+           if (principal == null) {
                throw new ServiceException("Unauthorized. Please log in.", new RuntimeException());
            }
 
@@ -97,19 +102,24 @@ public class PaymentService {
            }
 
 
-           if (!loggedInUser.getId().equals(customer.getId())) {
+           if (!principal.getId().equals(customer.getId())) {
                throw new ServiceException("Only the customer can make this payment.", new RuntimeException());
            }
 
 
-           Payment payment = Payment.builder()
-                   .bid(bid)
-                   .customer(customer)
-                   .seller(seller)
-                   .amount(amount)
-                   .paymentStatus(PaymentStatus.COMPLETED)
-                   .transactionTime(LocalDateTime.now())
-                   .build();
+           // Auctions that ended already carry an UNPAID payment for the winning bid, which is completed here.
+           Payment payment = paymentRepository.findByBidId(bidId)
+                   .orElseGet(() -> Payment.builder()
+                           .bid(bid)
+                           .customer(customer)
+                           .seller(seller)
+                           .amount(amount)
+                           .build());
+           if (payment.getPaymentStatus() == PaymentStatus.COMPLETED) {
+               throw new IllegalArgumentException("This bid has already been paid.");
+           }
+           payment.setPaymentStatus(PaymentStatus.COMPLETED);
+           payment.setTransactionTime(LocalDateTime.now());
 
 
            // Return a PaymentDTO, which automatically includes the itemName field
@@ -0,0 +1,120 @@
+package auction.services;
+
+import auction.entities.ProxyBid;
+import auction.repositories.ProxyBidRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * The proxy bids (hidden maximums) of every item that has been bid on since startup,
+ * and the rule that turns them into visible bids.
+ * <p>
+ * Of the current leader and every proxy that can still beat the current price, the
+ * highest maximum wins, the earlier one on a tie. The winner ends up one increment above
+ * the runner-up's maximum, or at its own maximum if that is less. Bidding increment by
+ * increment would reach the same state; here it takes at most two bids: the runner-up at
+ * its maximum and the winner's answer. An item is loaded from the database the first time
+ * it is needed and is only changed under the item's bid lock.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProxyBidBook {
+
+    private static final Comparator<Proxy> STRONGEST_FIRST =
+            Comparator.comparing(Proxy::maxAmount).reversed().thenComparing(Proxy::placedAt);
+
+    private final ProxyBidRepository proxyBidRepository;
+
+    private final ConcurrentMap<Long, Map<Long, Proxy>> items = new ConcurrentHashMap<>();
+
+    public Collection<Proxy> get(Long itemId) {
+        return items.computeIfAbsent(itemId, this::load).values();
+    }
+
+    /**
+     * Record a maximum that has just been saved, replacing the customer's previous one.
+     */
+    public void put(Long itemId, Proxy proxy) {
+        items.computeIfAbsent(itemId, this::load).put(proxy.customerId(), proxy);
+    }
+
+    /**
+     * Forget an item, e.g. once its auction is settled.
+     */
+    public void evict(Long itemId) {
+        items.remove(itemId);
+    }
+
+    private Map<Long, Proxy> load(Long itemId) {
+        Map<Long, Proxy> proxies = new ConcurrentHashMap<>();
+        for (ProxyBid proxyBid : proxyBidRepository.findByItemId(itemId)) {
+            Long customerId = proxyBid.getCustomer().getId();
+            proxies.put(customerId, new Proxy(customerId, proxyBid.getMaxAmount(), proxyBid.getPlacedAt()));
+        }
+        return proxies;
+    }
+
+    /**
+     * The bids the proxies place against the standing bid, in order.
+     *
+     * @param leaderId  the customer with the highest bid, null if there are no bids
+     * @param price     the highest bid, null if there are no bids
+     * @param opening   the lowest first bid
+     * @param increment how far the winner goes above a given maximum of the runner-up
+     */
+    static List<AutoBid> resolve(Long leaderId, BigDecimal price, BigDecimal opening,
+                                 UnaryOperator<BigDecimal> increment, Collection<Proxy> proxies) {
+        List<Proxy> contenders = new ArrayList<>();
+        Proxy leaderProxy = null;
+        for (Proxy proxy : proxies) {
+            if (proxy.customerId().equals(leaderId)) {
+                leaderProxy = proxy;
+            } else if (price == null ? proxy.maxAmount().compareTo(opening) >= 0 : proxy.maxAmount().compareTo(price) > 0) {
+                contenders.add(proxy);
+            }
+        }
+        if (contenders.isEmpty()) {
+            return List.of();
+        }
+        if (leaderId != null) {
+            // The leader competes with the higher of its standing bid and its own maximum.
+            contenders.add(leaderProxy != null && leaderProxy.maxAmount().compareTo(price) > 0
+                    ? leaderProxy
+                    : new Proxy(leaderId, price, LocalDateTime.MIN));
+        }
+        contenders.sort(STRONGEST_FIRST);
+
+        Proxy winner = contenders.get(0);
+        if (contenders.size() == 1) {
+            return List.of(new AutoBid(winner.customerId(), opening));
+        }
+        Proxy runnerUp = contenders.get(1);
+        if (winner.maxAmount().compareTo(runnerUp.maxAmount()) == 0) {
+            return List.of(new AutoBid(winner.customerId(), winner.maxAmount()));
+        }
+
+        List<AutoBid> bids = new ArrayList<>(2);
+        if (price == null || runnerUp.maxAmount().compareTo(price) > 0) {
+            bids.add(new AutoBid(runnerUp.customerId(), runnerUp.maxAmount()));
+        }
+        bids.add(new AutoBid(winner.customerId(), winner.maxAmount().min(runnerUp.maxAmount().add(increment.apply(runnerUp.maxAmount())))));
+        return bids;
+    }
+
+    public record Proxy(Long customerId, BigDecimal maxAmount, LocalDateTime placedAt) {
+    }
+
+    public record AutoBid(Long customerId, BigDecimal amount) {
+    }
+}
@@ -5,8 +5,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
+import auction.configs.CacheConfig;
+import auction.entities.DTO.UserPrincipal;
 import auction.entities.RO.SellerApplicationRO;
 import auction.entities.SellerApplication;
 import auction.entities.User;
@@ -15,7 +18,6 @@ import auction.entities.enums.Role;
 import auction.exceptions.ServiceException;
 import auction.repositories.SellerApplicationRepository;
 import auction.repositories.UserRepository;
-import jakarta.servlet.http.HttpSession;
 import jakarta.transaction.Transactional;
 
 
@@ -56,21 +58,21 @@ public class SellerApplicationService {
     }
 
     @Transactional
-    public SellerApplication createApplication(SellerApplicationRO applicationRO, HttpSession session) {
+    public SellerApplication createApplication(SellerApplicationRO applicationRO, UserPrincipal principal) {
         try {
-            User loggedInUser = (User) session.getAttribute("loggedInUser");
-            if (loggedInUser == null) {
+            if (principal == null) {
                 throw new RuntimeException("User is not logged in");
             }
 
             // Check if user already has an application
-            if (hasApplicationByUserId(loggedInUser.getId())) {
+            if (hasApplicationByUserId(principal.getId())) {
                 throw new RuntimeException("User already has a pending or approved application");
             }
 
             SellerApplication application = applicationRO.toEntity();
 
-            application.setUser(loggedInUser);
+            application.setUser(userRepository.findById(principal.getId())
+                    .orElseThrow(() -> new RuntimeException("User not found")));
 
             if (applicationRO.getAdmin() != null && applicationRO.getAdmin().getUserId() != null) {
                 User admin = userRepository.findById(applicationRO.getAdmin().getUserId())
@@ -84,7 +86,9 @@ public class SellerApplicationService {
         }
     }
 
+    // Approval changes the applicant's role; approvals are rare enough to clear the whole cache.
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS, allEntries = true)
     public SellerApplication updateApplicationStatus(Long id, SellerApplicationRO applicationRO, Long adminId) {
         try {
             SellerApplication application = sellerApplicationRepository.findById(id)
@@ -0,0 +1,123 @@
+package auction.services;
+
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.enums.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and checks the login tokens that replace server-side sessions.
+ * <p>
+ * A token is {@code base64url(<user id>.<role>.<expiry epoch seconds>)} followed by
+ * {@code .base64url(HMAC-SHA256 of that payload)}. Checking one needs only the key, so
+ * any node sharing {@code auction.auth.secret} accepts tokens issued by any other.
+ * Without a configured secret a random one is generated, and tokens stop working on
+ * restart.
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    public static final String COOKIE = "auction_token";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    // Mac instances are not thread-safe.
+    private final ThreadLocal<Mac> macs;
+
+    public TokenService(@Value("${auction.auth.secret:}") String secret,
+                        @Value("${auction.auth.ttl:12h}") Duration ttl) {
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            log.warn("auction.auth.secret is not set; using a random key, so logins will not survive a restart.");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public String issue(Long userId, Role role) {
+        String payload = userId + "." + role.name() + "." + Instant.now().plus(ttl).getEpochSecond();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * The principal of the token, if its signature is valid and it has not expired.
+     */
+    public Optional<UserPrincipal> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\.");
+            if (fields.length != 3 || Instant.now().getEpochSecond() >= Long.parseLong(fields[2])) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserPrincipal(Long.valueOf(fields[0]), Role.valueOf(fields[1])));
+        } catch (IllegalArgumentException e) {
+            // Not base64, not a number or not a role: not one of ours.
+            return Optional.empty();
+        }
+    }
+
+    public ResponseCookie cookie(String token) {
+        return ResponseCookie.from(COOKIE, token)
+                .httpOnly(true)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(ttl)
+                .build();
+    }
+
+    public ResponseCookie expiredCookie() {
+        return ResponseCookie.from(COOKIE, "")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(0)
+                .build();
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+}
@@ -1,18 +1,25 @@
 package auction.services;
 
+import auction.configs.CacheConfig;
+import auction.entities.DTO.UserIdentityDTO;
 import auction.entities.RO.UserRO;
 import auction.entities.User;
 import auction.entities.enums.Role;
+import auction.entities.response.CursorPage;
+import auction.entities.utils.CursorUtils;
 import auction.entities.utils.MessageUtils;
 import auction.entities.utils.ResponseUtils;
 import auction.exceptions.ServiceException;
 import auction.repositories.UserRepository;
-import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 
@@ -23,11 +30,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String USER_CURSOR = "USER";
+
     private final UserRepository userRepository;
+    private final ItemCache itemCache;
+    private final TokenService tokenService;
 
-    public List<User> getAll() {
+    public CursorPage<User> getAll(String cursor, Integer limit) {
         try {
-            List<User> users = userRepository.findAll();
+            CursorPage<User> users = getPage(null, cursor, limit);
             log.info(MessageUtils.retrieveSuccess("Users"));
             return users;
         } catch (Exception e) {
@@ -35,19 +46,33 @@ public class UserService {
         }
     }
 
-    public List<User> getAllByFilter(Role role) {
+    public CursorPage<User> getAllByFilter(Role role, String cursor, Integer limit) {
         try {
-            return userRepository.findAllByRole(role);
+            return getPage(role, cursor, limit);
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.retrieveError("Filtered Users"), e);
         }
     }
 
+    private CursorPage<User> getPage(Role role, String cursor, Integer limit) {
+        int pageSize = CursorUtils.pageSize(limit);
+        List<User> users = userRepository.findPage(role, CursorUtils.decodeId(cursor, USER_CURSOR), Limit.of(pageSize + 1));
+        return CursorPage.of(users, pageSize, user -> CursorUtils.encode(USER_CURSOR, user.getId()));
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id).orElseThrow(() ->
                 new ServiceException(MessageUtils.notFound("User"), new RuntimeException("User not found")));
     }
 
+    /**
+     * Id, username and role of the user, as used by the bidding checks.
+     */
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id")
+    public UserIdentityDTO getIdentity(Long id) {
+        return new UserIdentityDTO(getUserById(id));
+    }
+
     @Transactional
     public void save(UserRO userRO) {
         try {
@@ -59,12 +84,15 @@ public class UserService {
         }
     }
 
+    // Item summaries and details carry the seller's username.
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     public void update(Long id, UserRO userRO) {
         try {
             User existingUser = getUserById(id);
             existingUser.updateFromRO(userRO);
             userRepository.save(existingUser);
+            itemCache.evictAll();
             log.info(MessageUtils.updateSuccess("User"));
         } catch (Exception e) {
             throw new ServiceException(MessageUtils.updateError("User"), e);
@@ -72,6 +100,7 @@ public class UserService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     public void delete(Long id) {
         try {
             User user = getUserById(id);
@@ -83,16 +112,18 @@ public class UserService {
     }
 
     @Transactional
-    public ResponseEntity<?> login(String username, String password, HttpSession session) {
+    public ResponseEntity<?> login(String username, String password) {
         try {
             User user = userRepository.findByUsername(username)
                     .orElseThrow(() -> new ServiceException(MessageUtils.userNotFound("User"),
                             new RuntimeException("User not found")));
 
             if (password.equals(user.getPassword())) {
-                session.setAttribute("loggedInUser", user);
-                return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(
-                        HttpStatus.OK, MessageUtils.loginSuccess("User")));
+                // The token goes in an HttpOnly cookie for the browser and in the body for API clients.
+                String token = tokenService.issue(user.getId(), user.getRole());
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.SET_COOKIE, tokenService.cookie(token).toString())
+                        .body(ResponseUtils.buildSuccessResponse(HttpStatus.OK, MessageUtils.loginSuccess("User"), token));
             } else {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseUtils.buildErrorResponse(
                         HttpStatus.UNAUTHORIZED, MessageUtils.loginFailed("User")));
@@ -108,8 +139,9 @@ public class UserService {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpSession session) {
-        session.invalidate();
-        return ResponseEntity.ok(ResponseUtils.buildSuccessResponse(HttpStatus.OK, "Logged out successfully"));
+    public ResponseEntity<?> logout() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, tokenService.expiredCookie().toString())
+                .body(ResponseUtils.buildSuccessResponse(HttpStatus.OK, "Logged out successfully"));
     }
 }
@@ -0,0 +1,137 @@
+-- Schema as it stood when migrations were introduced, i.e. what spring.jpa.hibernate.ddl-auto=update
+-- produced from the entities. Databases that already have these tables are baselined at
+-- this version (spring.flyway.baseline-on-migrate) and skip it.
+
+create table bids (
+    bid_amount decimal(38,2) not null,
+    final_price decimal(38,2),
+    bid_id bigint not null auto_increment,
+    bid_time datetime(6) not null,
+    customer_id BIGINT not null,
+    item_id BIGINT not null,
+    seller_id BIGINT not null,
+    image_base64 LONGTEXT,
+    primary key (bid_id)
+) engine=InnoDB;
+
+create table categories (
+    category_id BIGINT not null auto_increment,
+    name varchar(100) not null,
+    primary key (category_id)
+) engine=InnoDB;
+
+create table items (
+    bid_increment decimal(10,2) not null,
+    starting_price decimal(10,2) not null,
+    admin_id BIGINT,
+    approved_at datetime(6),
+    category_id BIGINT not null,
+    created_at datetime(6),
+    end_time datetime(6),
+    item_id BIGINT not null auto_increment,
+    seller_id BIGINT not null,
+    start_time datetime(6),
+    description LONGTEXT,
+    image_base64 LONGTEXT,
+    name varchar(255) not null,
+    auction_status enum ('ACTIVE','ENDED','NOT_STARTED') not null,
+    status enum ('APPROVED','EXPIRED','PENDING','REJECTED','SOLD') not null,
+    primary key (item_id)
+) engine=InnoDB;
+
+create table payments (
+    amount decimal(38,2) not null,
+    bid_id bigint not null,
+    customer_id BIGINT not null,
+    payment_id bigint not null auto_increment,
+    seller_id BIGINT not null,
+    transaction_time datetime(6) not null,
+    payment_status enum ('COMPLETED','FAILED','UNPAID') not null,
+    primary key (payment_id)
+) engine=InnoDB;
+
+create table seller_applications (
+    admin_id BIGINT,
+    application_id bigint not null auto_increment,
+    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP not null,
+    approved_at datetime(6),
+    user_id BIGINT not null,
+    description varchar(255) not null,
+    status ENUM('PENDING', 'APPROVED', 'REJECTED') DEFAULT 'PENDING' not null,
+    primary key (application_id)
+) engine=InnoDB;
+
+create table users (
+    created_at datetime(6),
+    user_id BIGINT not null auto_increment,
+    bio varchar(255),
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password_hash varchar(255) not null,
+    username varchar(255) not null,
+    role enum ('ADMIN','CUSTOMER','SELLER') not null,
+    primary key (user_id)
+) engine=InnoDB;
+
+alter table categories
+    add constraint uk_categories_name unique (name);
+
+alter table payments
+    add constraint uk_payments_bid_id unique (bid_id);
+
+alter table bids
+    add constraint fk_bids_customer
+    foreign key (customer_id)
+    references users (user_id);
+
+alter table bids
+    add constraint fk_bids_item
+    foreign key (item_id)
+    references items (item_id);
+
+alter table bids
+    add constraint fk_bids_seller
+    foreign key (seller_id)
+    references users (user_id);
+
+alter table items
+    add constraint fk_items_admin
+    foreign key (admin_id)
+    references users (user_id);
+
+alter table items
+    add constraint fk_items_category
+    foreign key (category_id)
+    references categories (category_id);
+
+alter table items
+    add constraint fk_items_seller
+    foreign key (seller_id)
+    references users (user_id);
+
+alter table payments
+    add constraint fk_payments_bid
+    foreign key (bid_id)
+    references bids (bid_id);
+
+alter table payments
+    add constraint fk_payments_customer
+    foreign key (customer_id)
+    references users (user_id);
+
+alter table payments
+    add constraint fk_payments_seller
+    foreign key (seller_id)
+    references users (user_id);
+
+alter table seller_applications
+    add constraint fk_seller_applications_admin
+    foreign key (admin_id)
+    references users (user_id);
+
+alter table seller_applications
+    add constraint fk_seller_applications_user
+    foreign key (user_id)
+    references users (user_id);
+
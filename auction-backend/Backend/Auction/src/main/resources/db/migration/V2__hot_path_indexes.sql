@@ -0,0 +1,19 @@
+-- Highest bid of an item (CurrentPriceIndex, settlement)
+create index idx_bids_item_amount on bids (item_id, bid_amount);
+
+-- Bid history of a customer
+create index idx_bids_customer_time on bids (customer_id, bid_time);
+
+-- Catalog filters on status and category
+create index idx_items_status_category on items (status, category_id);
+
+-- Lifecycle and "ending soonest" scans of running auctions
+create index idx_items_auction_end on items (auction_status, end_time);
+
+-- Login looks users up by username. Duplicate usernames or emails have to be resolved
+-- before this migration can run.
+alter table users
+    add constraint uk_users_username unique (username);
+
+alter table users
+    add constraint uk_users_email unique (email);
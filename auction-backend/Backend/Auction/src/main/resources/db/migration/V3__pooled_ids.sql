@@ -0,0 +1,13 @@
+-- Bids, items and payments take their ids from this table in blocks of 50 (the pooled
+-- optimizer), which lets Hibernate batch their inserts. A row holds the upper end of the
+-- block handed out last; reading it hands out the ids just below it and moves it up by 50.
+create table id_generators (
+    name varchar(64) not null,
+    next_val bigint,
+    primary key (name)
+) engine=InnoDB;
+
+-- Seeded so that the first block lies above the rows that already exist
+insert into id_generators (name, next_val) select 'bids', coalesce(max(bid_id), 0) + 50 from bids;
+insert into id_generators (name, next_val) select 'items', coalesce(max(item_id), 0) + 50 from items;
+insert into id_generators (name, next_val) select 'payments', coalesce(max(payment_id), 0) + 50 from payments;
@@ -0,0 +1,23 @@
+-- Hidden maximums for automatic bidding; one per customer and item, replaced when the
+-- customer registers a new one
+create table proxy_bids (
+    proxy_bid_id bigint not null auto_increment,
+    item_id BIGINT not null,
+    customer_id BIGINT not null,
+    max_amount decimal(38,2) not null,
+    placed_at datetime(6) not null,
+    primary key (proxy_bid_id)
+) engine=InnoDB;
+
+alter table proxy_bids
+    add constraint uk_proxy_bids_item_customer unique (item_id, customer_id);
+
+alter table proxy_bids
+    add constraint fk_proxy_bids_item
+    foreign key (item_id)
+    references items (item_id);
+
+alter table proxy_bids
+    add constraint fk_proxy_bids_customer
+    foreign key (customer_id)
+    references users (user_id);
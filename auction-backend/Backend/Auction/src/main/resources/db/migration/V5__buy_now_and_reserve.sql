@@ -0,0 +1,6 @@
+-- Optional buy-now price and hidden reserve price of an item
+alter table items
+    add column buy_now_price decimal(10,2);
+
+alter table items
+    add column reserve_price decimal(10,2);
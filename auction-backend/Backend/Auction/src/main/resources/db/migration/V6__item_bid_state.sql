@@ -0,0 +1,24 @@
+-- Price, bid count and leader of an item, kept on the item row so listings do not read
+-- the bid history; version guards the conditional update a bid makes to the row.
+alter table items
+    add column current_price decimal(10,2);
+
+alter table items
+    add column bid_count INT DEFAULT 0 not null;
+
+alter table items
+    add column leading_bidder_id bigint;
+
+alter table items
+    add column version BIGINT DEFAULT 0 not null;
+
+-- Existing auctions start from the bids they already have
+update items
+    set bid_count = (select count(*) from bids b where b.item_id = items.item_id);
+
+update items
+    set current_price = coalesce((select max(b.bid_amount) from bids b where b.item_id = items.item_id), starting_price);
+
+update items
+    set leading_bidder_id = (select b.customer_id from bids b where b.item_id = items.item_id
+                             order by b.bid_amount desc, b.bid_id asc limit 1);
@@ -0,0 +1,4 @@
+-- Images live in the image store and items refer to them by hash. image_base64 stays
+-- until ImageMigrationTask has moved the old images out of it.
+alter table items
+    add column image_hash varchar(64);
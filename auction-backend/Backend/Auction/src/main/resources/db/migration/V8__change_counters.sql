@@ -0,0 +1,10 @@
+-- Versions of row sets that have no version column of their own. Every node reads the
+-- same value here, so the ETags derived from it agree across nodes.
+create table change_counters (
+    name varchar(64) not null,
+    version BIGINT not null,
+    primary key (name)
+) engine=InnoDB;
+
+insert into change_counters (name, version) values ('categories', 0);
+insert into change_counters (name, version) values ('item-labels', 0);
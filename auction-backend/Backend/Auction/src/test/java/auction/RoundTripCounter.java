@@ -0,0 +1,35 @@
+package auction;
+
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the trips to the database Hibernate makes for writes: every statement executed
+ * on its own and every JDBC batch, however many rows it carries. Registered for tests
+ * through {@code spring.jpa.properties.hibernate.session.events.auto}.
+ */
+public class RoundTripCounter implements SessionEventListener {
+
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+    private static final AtomicInteger BATCHES = new AtomicInteger();
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        STATEMENTS.incrementAndGet();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        BATCHES.incrementAndGet();
+    }
+
+    public static void reset() {
+        STATEMENTS.set(0);
+        BATCHES.set(0);
+    }
+
+    public static int count() {
+        return STATEMENTS.get() + BATCHES.get();
+    }
+}
@@ -0,0 +1,44 @@
+package auction;
+
+import auction.entities.Category;
+import auction.entities.Item;
+import auction.entities.User;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.Role;
+
+import java.math.BigDecimal;
+
+/**
+ * Users and items for tests that need rows in the database. Nothing is saved here;
+ * the caller decides how the entity gets persisted.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static User user(String username, Role role) {
+        return User.builder()
+                .firstName("First")
+                .lastName("Last")
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .role(role)
+                .build();
+    }
+
+    /**
+     * An approved item starting at 10 with an increment of 1. The auction status, end
+     * time and any buy-now or reserve price are left to the caller.
+     */
+    public static Item.ItemBuilder item(String name, User seller, Category category) {
+        return Item.builder()
+                .name(name)
+                .seller(seller)
+                .category(category)
+                .startingPrice(BigDecimal.TEN)
+                .bidIncrement(BigDecimal.ONE)
+                .status(ItemStatus.APPROVED);
+    }
+}
@@ -0,0 +1,105 @@
+package auction.controllers;
+
+import auction.entities.Category;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.User;
+import auction.entities.enums.Role;
+import auction.repositories.CategoryRepository;
+import auction.repositories.ItemRepository;
+import auction.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static auction.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * An item image is only written to disk for a seller whose item is accepted.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:upload;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ItemUploadTest {
+
+    private static Path imageDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @DynamicPropertySource
+    static void imageDir(DynamicPropertyRegistry registry) throws IOException {
+        imageDir = Files.createTempDirectory("item-images");
+        registry.add("auction.images.dir", imageDir::toString);
+    }
+
+    @Test
+    void aRejectedItemLeavesNoImageBehind() throws Exception {
+        User customer = userRepository.save(user("upload-customer", Role.CUSTOMER));
+        Category category = categoryRepository.save(Category.builder().name("Uploads").build());
+
+        mockMvc.perform(upload(category).requestAttr(UserPrincipal.ATTRIBUTE,
+                        new UserPrincipal(customer.getId(), Role.CUSTOMER)))
+                .andExpect(status().isInternalServerError());
+        mockMvc.perform(upload(category))
+                .andExpect(status().isInternalServerError());
+
+        assertEquals(0, storedFiles());
+    }
+
+    @Test
+    void aSellersItemIsSavedWithItsImage() throws Exception {
+        User seller = userRepository.save(user("upload-seller", Role.SELLER));
+        Category category = categoryRepository.save(Category.builder().name("Accepted uploads").build());
+
+        mockMvc.perform(upload(category).requestAttr(UserPrincipal.ATTRIBUTE,
+                        new UserPrincipal(seller.getId(), Role.SELLER)))
+                .andExpect(status().isCreated());
+
+        assertNotNull(itemRepository.findAll().stream()
+                .filter(item -> item.getCategory().getId().equals(category.getId()))
+                .findFirst().orElseThrow().getImageHash());
+    }
+
+    private static MockMultipartHttpServletRequestBuilder upload(Category category) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB), "png", png);
+        return (MockMultipartHttpServletRequestBuilder) multipart("/api/item")
+                .file(new MockMultipartFile("image", "lot.png", "image/png", png.toByteArray()))
+                .param("name", "Uploaded lot")
+                .param("startingPrice", "10")
+                .param("bidIncrement", "1")
+                .param("categoryId", category.getId().toString());
+    }
+
+    private static long storedFiles() throws IOException {
+        if (!Files.exists(imageDir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(imageDir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
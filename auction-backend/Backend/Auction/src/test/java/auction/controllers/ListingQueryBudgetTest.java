@@ -0,0 +1,244 @@
+package auction.controllers;
+
+import auction.QueryCounter;
+import auction.entities.Bid;
+import auction.entities.Category;
+import auction.entities.ChangeCounter;
+import auction.entities.Item;
+import auction.entities.Payment;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.PaymentStatus;
+import auction.entities.enums.Role;
+import auction.repositories.BidRepository;
+import auction.repositories.CategoryRepository;
+import auction.repositories.ChangeCounterRepository;
+import auction.repositories.ItemRepository;
+import auction.repositories.PaymentRepository;
+import auction.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static auction.TestFixtures.item;
+import static auction.TestFixtures.user;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listing endpoints must load a page with a fixed number of statements, no matter
+ * how many rows, items and users the page touches.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=auction.QueryCounter")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListingQueryBudgetTest {
+
+    private static final int STATEMENT_BUDGET = 1;
+    // The page itself plus one select for the side-loaded item summaries
+    private static final int COMPACT_STATEMENT_BUDGET = 2;
+    // The version lookup behind the ETag
+    private static final int ETAG_STATEMENTS = 1;
+    private static final int ITEMS = 12;
+    private static final int CUSTOMERS = 8;
+    private static final int BIDS_PER_ITEM = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BidRepository bidRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private ChangeCounterRepository changeCounterRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User seller;
+    private User customer;
+
+    @BeforeAll
+    void seed() {
+        seller = userRepository.save(user("budget-seller", Role.SELLER));
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(userRepository.save(user("budget-customer-" + i, Role.CUSTOMER)));
+        }
+        customer = customers.get(0);
+
+        for (int i = 0; i < ITEMS; i++) {
+            Category category = categoryRepository.save(Category.builder().name("Budget category " + i).build());
+            Item item = itemRepository.save(item("Lot " + i, seller, category)
+                    .auctionStatus(AuctionStatus.ENDED)
+                    .build());
+            Bid last = null;
+            for (int b = 0; b < BIDS_PER_ITEM; b++) {
+                last = bidRepository.save(Bid.builder()
+                        .item(item)
+                        .customer(b == 0 ? customer : customers.get((i + b) % CUSTOMERS))
+                        .seller(seller)
+                        .bidAmount(BigDecimal.valueOf(11 + b))
+                        .build());
+            }
+            paymentRepository.save(Payment.builder()
+                    .bid(last)
+                    .customer(customer)
+                    .seller(seller)
+                    .amount(last.getBidAmount())
+                    .paymentStatus(PaymentStatus.UNPAID)
+                    .build());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/bid",
+            "/api/bid/filter",
+            "/api/bid/user/{customer}",
+            "/payments/customer/{customer}",
+            "/payments/seller/{seller}",
+            "/payments/payments/customer/{customer}?status=UNPAID"
+    })
+    void listingStaysWithinStatementBudget(String template) throws Exception {
+        String url = template
+                .replace("{customer}", customer.getId().toString())
+                .replace("{seller}", seller.getId().toString())
+                .replace("{item}", itemRepository.findAll().get(0).getId().toString());
+
+        QueryCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        int statements = QueryCounter.count();
+
+        assertTrue(statements <= STATEMENT_BUDGET,
+                url + " ran " + statements + " statements, the budget is " + STATEMENT_BUDGET);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/bid/compact?limit=200",
+            "/api/bid/compact?customerId={customer}&limit=200",
+            "/payments/compact?customerId={customer}&limit=200",
+            "/payments/compact?sellerId={seller}&status=UNPAID&limit=200"
+    })
+    void compactListingSendsEachItemOnce(String template) throws Exception {
+        String url = template
+                .replace("{customer}", customer.getId().toString())
+                .replace("{seller}", seller.getId().toString());
+
+        QueryCounter.reset();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isArray())
+                .andExpect(jsonPath("$.data[0].itemId").isNumber())
+                .andExpect(jsonPath("$.data[0].item").doesNotExist())
+                .andExpect(jsonPath("$.items.length()").value(ITEMS));
+        int statements = QueryCounter.count();
+
+        assertTrue(statements <= COMPACT_STATEMENT_BUDGET,
+                url + " ran " + statements + " statements, the budget is " + COMPACT_STATEMENT_BUDGET);
+    }
+
+    @Test
+    void repeatedItemDetailsComeFromTheCache() throws Exception {
+        String url = "/api/item/" + itemRepository.findAll().get(1).getId();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        QueryCounter.reset();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.sellerUsername").value("budget-seller"));
+        int statements = QueryCounter.count();
+
+        assertTrue(statements == ETAG_STATEMENTS, url + " ran " + statements + " statements on a cache hit");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/item/{item}", "/api/bid/item/{item}"})
+    void unchangedItemIsRevalidatedWithoutLoadingIt(String template) throws Exception {
+        String url = template.replace("{item}", itemRepository.findAll().get(2).getId().toString());
+
+        QueryCounter.reset();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        int statements = QueryCounter.count();
+        assertTrue(statements <= ETAG_STATEMENTS + STATEMENT_BUDGET,
+                url + " ran " + statements + " statements, the budget is " + (ETAG_STATEMENTS + STATEMENT_BUDGET));
+
+        QueryCounter.reset();
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        statements = QueryCounter.count();
+        assertTrue(statements == ETAG_STATEMENTS, url + " ran " + statements + " statements for a 304");
+    }
+
+    @Test
+    void categoriesAreRevalidatedWithTheCounterLookupAlone() throws Exception {
+        String etag = mockMvc.perform(get("/api/category"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        QueryCounter.reset();
+        mockMvc.perform(get("/api/category").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        assertTrue(QueryCounter.count() == ETAG_STATEMENTS, "/api/category ran " + QueryCounter.count() + " statements for a 304");
+    }
+
+    @Test
+    void aCategoryAddedOnAnotherNodeChangesTheTagAndTheList() throws Exception {
+        String etag = mockMvc.perform(get("/api/category"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // What another node's CategoryService.save leaves behind in the database
+        categoryRepository.save(Category.builder().name("Added elsewhere").build());
+        changeCounterRepository.increment(ChangeCounter.CATEGORIES);
+
+        mockMvc.perform(get("/api/category").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.data[*].name", hasItem("Added elsewhere")));
+    }
+
+    @Test
+    void anItemChangedOnAnotherNodeIsNotServedFromThisNodesCopy() throws Exception {
+        Long itemId = itemRepository.findAll().get(3).getId();
+        String url = "/api/item/" + itemId;
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Another node's edit: the row moves on, this node's cached copy stays
+        jdbcTemplate.update("UPDATE items SET name = 'Renamed elsewhere', version = version + 1 WHERE item_id = ?", itemId);
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.data.name").value("Renamed elsewhere"));
+    }
+}
@@ -0,0 +1,57 @@
+package auction.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * A database that still has the schema from before the migrations is baselined at V1;
+ * the later migrations must bring its items up to date, bids included.
+ */
+class BaselineMigrationTest {
+
+    @Test
+    void itemsOfABaselinedDatabaseGetTheirBidState() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+
+        jdbc.update("INSERT INTO users (user_id, email, first_name, last_name, password_hash, username, role) VALUES " +
+                "(1, 's@example.com', 'S', 'S', 'x', 'seller', 'SELLER'), " +
+                "(2, 'a@example.com', 'A', 'A', 'x', 'alice', 'CUSTOMER'), " +
+                "(3, 'b@example.com', 'B', 'B', 'x', 'bob', 'CUSTOMER')");
+        jdbc.update("INSERT INTO categories (category_id, name) VALUES (1, 'Old')");
+        jdbc.update("INSERT INTO items (item_id, bid_increment, starting_price, category_id, seller_id, name, " +
+                "image_base64, auction_status, status) VALUES " +
+                "(1, 1, 10, 1, 1, 'With bids', 'data:image/png;base64,AA==', 'ACTIVE', 'APPROVED'), " +
+                "(2, 1, 20, 1, 1, 'Without bids', NULL, 'ACTIVE', 'APPROVED')");
+        jdbc.update("INSERT INTO bids (bid_id, bid_amount, bid_time, customer_id, item_id, seller_id) VALUES " +
+                "(1, 15, CURRENT_TIMESTAMP, 2, 1, 1), (2, 30, CURRENT_TIMESTAMP, 3, 1, 1), " +
+                "(3, 30, CURRENT_TIMESTAMP, 2, 1, 1)");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        Map<String, Object> withBids = jdbc.queryForMap(
+                "SELECT current_price, bid_count, leading_bidder_id, version, image_hash FROM items WHERE item_id = 1");
+        assertEquals(0, BigDecimal.valueOf(30).compareTo((BigDecimal) withBids.get("current_price")));
+        assertEquals(3, ((Number) withBids.get("bid_count")).intValue());
+        // The earlier of two equal bids leads
+        assertEquals(3L, ((Number) withBids.get("leading_bidder_id")).longValue());
+        assertEquals(0L, ((Number) withBids.get("version")).longValue());
+        assertNull(withBids.get("image_hash"));
+
+        Map<String, Object> withoutBids = jdbc.queryForMap(
+                "SELECT current_price, bid_count, leading_bidder_id FROM items WHERE item_id = 2");
+        assertEquals(0, BigDecimal.valueOf(20).compareTo((BigDecimal) withoutBids.get("current_price")));
+        assertEquals(0, ((Number) withoutBids.get("bid_count")).intValue());
+        assertNull(withoutBids.get("leading_bidder_id"));
+    }
+}
@@ -0,0 +1,141 @@
+package auction.repositories;
+
+import auction.RoundTripCounter;
+import auction.entities.Bid;
+import auction.entities.Category;
+import auction.entities.Item;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.Role;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static auction.TestFixtures.item;
+import static auction.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes 10k bids and updates 10k items, once with the configured JDBC batching and once
+ * with batching turned off for the session, and compares the trips to the database.
+ * Only the number of trips is checked; an in-memory database says little about timing.
+ * Runs on its own in-memory database so the rows do not show up in other tests.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batching;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session.events.auto=auction.RoundTripCounter"
+})
+class BatchWriteBenchmarkTest {
+
+    private static final int ROWS = 10_000;
+    // spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+    private static final int FLUSH_EVERY = 1_000;
+    // The id generator reads and bumps its row once for every block of 50 ids
+    private static final int ID_BLOCK_TRIPS = 2 * ROWS / BATCH_SIZE;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void bidInsertsAreBatched() {
+        User seller = userRepository.save(user("bench-bid-seller", Role.SELLER));
+        User customer = userRepository.save(user("bench-bid-customer", Role.CUSTOMER));
+        Item item = itemRepository.save(item("Bench lot", seller, category("Bench bids"))
+                .auctionStatus(AuctionStatus.NOT_STARTED)
+                .build());
+
+        int batched = insertBids(item, customer, seller, null);
+        int oneByOne = insertBids(item, customer, seller, 1);
+
+        log.info("{} bid inserts: {} round trips batched, {} one by one.", ROWS, batched, oneByOne);
+        assertEquals(ROWS + ID_BLOCK_TRIPS, oneByOne);
+        assertTrue(batched <= ROWS / BATCH_SIZE + ID_BLOCK_TRIPS,
+                batched + " round trips for " + ROWS + " batched inserts");
+    }
+
+    @Test
+    void itemUpdatesAreBatched() {
+        User seller = userRepository.save(user("bench-item-seller", Role.SELLER));
+        Category category = category("Bench items");
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(item("Bench item " + i, entityManager.getReference(User.class, seller.getId()),
+                                entityManager.getReference(Category.class, category.getId()))
+                        .auctionStatus(AuctionStatus.NOT_STARTED)
+                        .build());
+                flushEvery(i);
+            }
+        });
+
+        int batched = updateItems(category, AuctionStatus.ACTIVE, null);
+        int oneByOne = updateItems(category, AuctionStatus.ENDED, 1);
+
+        log.info("{} item updates: {} round trips batched, {} one by one.", ROWS, batched, oneByOne);
+        assertEquals(ROWS, oneByOne);
+        assertTrue(batched <= ROWS / BATCH_SIZE, batched + " round trips for " + ROWS + " batched updates");
+    }
+
+    // Round trips of the inserts; a null batch size keeps the configured one
+    private int insertBids(Item item, User customer, User seller, Integer batchSize) {
+        RoundTripCounter.reset();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(Bid.builder()
+                        .item(entityManager.getReference(Item.class, item.getId()))
+                        .customer(entityManager.getReference(User.class, customer.getId()))
+                        .seller(entityManager.getReference(User.class, seller.getId()))
+                        .bidAmount(BigDecimal.valueOf(11 + i))
+                        .build());
+                flushEvery(i);
+            }
+        });
+        return RoundTripCounter.count();
+    }
+
+    // Round trips of the updates only; the items are loaded before the counter starts
+    private int updateItems(Category category, AuctionStatus auctionStatus, Integer batchSize) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            List<Item> items = entityManager.createQuery(
+                            "SELECT i FROM Item i WHERE i.category.id = :categoryId", Item.class)
+                    .setParameter("categoryId", category.getId())
+                    .getResultList();
+            assertEquals(ROWS, items.size());
+            items.forEach(item -> item.setAuctionStatus(auctionStatus));
+
+            RoundTripCounter.reset();
+            entityManager.flush();
+            return RoundTripCounter.count();
+        });
+    }
+
+    private void flushEvery(int i) {
+        if ((i + 1) % FLUSH_EVERY == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    private Category category(String name) {
+        return categoryRepository.save(Category.builder().name(name).build());
+    }
+}
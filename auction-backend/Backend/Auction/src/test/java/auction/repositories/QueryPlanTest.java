@@ -0,0 +1,147 @@
+package auction.repositories;
+
+import auction.QueryCounter;
+import auction.entities.enums.ItemStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the hot repository queries, takes the SQL Hibernate generated for them and checks
+ * its plan on the migrated schema: the filtered table is not scanned, and the index meant
+ * for the query looks rows up by the query's own filter columns.
+ * <p>
+ * The parameters are inlined into the statement the way the MySQL driver sends them by
+ * default, which lets the optional {@code :x IS NULL OR ...} filters fold away. H2 costs
+ * a composite index the same as the foreign key index on its leading column, where MySQL
+ * prefers the composite one, so the intended index is named with {@code USE INDEX} for
+ * the second check.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=auction.QueryCounter"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BidRepository bidRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    // On empty tables a scan costs H2 as little as any index, so the plans are taken on some data.
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (user_id, email, first_name, last_name, password_hash, username, role) " +
+                "SELECT n, CONCAT('user', n, '@example.com'), 'First', 'Last', 'secret', CONCAT('user', n), 'CUSTOMER' " +
+                "FROM SYSTEM_RANGE(1, 50) r (n)");
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) SELECT n, CONCAT('category', n) FROM SYSTEM_RANGE(1, 10) r (n)");
+        jdbcTemplate.update("INSERT INTO items (item_id, bid_increment, starting_price, category_id, seller_id, name, " +
+                "status, auction_status, bid_count, version) " +
+                "SELECT n, 1, 1, MOD(n, 10) + 1, MOD(n, 50) + 1, CONCAT('item', n), " +
+                "CASE MOD(n, 3) WHEN 0 THEN 'APPROVED' ELSE 'PENDING' END, 'ACTIVE', 0, 0 FROM SYSTEM_RANGE(1, 500) r (n)");
+        jdbcTemplate.update("INSERT INTO bids (bid_id, bid_amount, bid_time, customer_id, item_id, seller_id) " +
+                "SELECT n, n, CURRENT_TIMESTAMP, MOD(n, 50) + 1, MOD(n, 500) + 1, 1 FROM SYSTEM_RANGE(1, 5000) r (n)");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void highestBidOfAnItem() {
+        String sql = capture(() -> bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(1L));
+        assertPlan(sql, "bids", "idx_bids_item_amount", "item_id = CAST(1 AS BIGINT)", 1L, 1);
+    }
+
+    @Test
+    void bidHistoryOfACustomer() {
+        String sql = capture(() -> bidRepository.findPageByFilter(null, 1L, null, Limit.of(20)));
+        assertPlan(sql, "bids", "idx_bids_customer_time", "customer_id = CAST(1 AS BIGINT)", null, null, 1L, 1L, null, null, 20);
+    }
+
+    @Test
+    void catalogPageByStatusAndCategory() {
+        String sql = capture(() -> itemRepository.findSummariesNewest(ItemStatus.APPROVED, 1L, null, Limit.of(20)));
+        assertPlan(sql, "items", "idx_items_status_category", "category_id = CAST(1 AS BIGINT)",
+                "APPROVED", "APPROVED", 1L, 1L, null, null, 20);
+    }
+
+    @Test
+    void scheduledAuctionsAtStartup() {
+        String sql = capture(() -> itemRepository.findScheduledAuctionTimes());
+        assertPlan(sql, "items", "idx_items_status_category", "status = ");
+    }
+
+    @Test
+    void loginByUsername() {
+        String sql = capture(() -> userRepository.findByUsername("someone"));
+        assertPlan(sql, "users", "uk_users_username", "username = 'someone'", "someone");
+    }
+
+    @Test
+    void lookupByEmail() {
+        String sql = capture(() -> userRepository.findByEmail("someone@example.com"));
+        assertPlan(sql, "users", "uk_users_email", "email = 'someone@example.com'", "someone@example.com");
+    }
+
+    private static String capture(Runnable query) {
+        QueryCounter.reset();
+        query.run();
+        List<String> statements = QueryCounter.statements();
+        assertEquals(1, statements.size(), "Expected a single statement, got " + statements);
+        return statements.get(0);
+    }
+
+    private void assertPlan(String generated, String table, String index, String condition, Object... args) {
+        String sql = inline(generated, args);
+        String plan = explain(sql);
+        assertFalse(plan.contains("public." + table + ".tableScan"), "Table scan in the plan of " + sql + ":\n" + plan);
+
+        String physicalIndex = jdbcTemplate.queryForObject(
+                "SELECT index_name FROM information_schema.indexes WHERE table_name = ? " +
+                        "AND (index_name = ? OR index_name LIKE ?) FETCH FIRST 1 ROWS ONLY",
+                String.class, table, index, index + "\\_INDEX%");
+        Matcher from = Pattern.compile("\\b(from|join) " + table + " (\\w+)").matcher(sql);
+        assertTrue(from.find(), "No " + table + " in " + sql);
+        String hinted = sql.substring(0, from.end()) + " USE INDEX (\"" + physicalIndex + "\")" + sql.substring(from.end());
+
+        String hintedPlan = explain(hinted);
+        Matcher lookup = Pattern.compile("/\\* public\\." + physicalIndex + ": ([^*]*)\\*/").matcher(hintedPlan);
+        assertTrue(lookup.find() && lookup.group(1).contains(condition),
+                index + " does not look up " + condition + " in the plan of " + sql + ":\n" + hintedPlan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static String inline(String sql, Object... args) {
+        StringBuilder inlined = new StringBuilder();
+        int arg = 0;
+        for (char c : sql.toCharArray()) {
+            if (c != '?') {
+                inlined.append(c);
+            } else if (args[arg] instanceof String value) {
+                inlined.append('\'').append(value.replace("'", "''")).append('\'');
+                arg++;
+            } else {
+                inlined.append(args[arg++]);
+            }
+        }
+        assertEquals(args.length, arg, "Parameter count of " + sql);
+        return inlined.toString();
+    }
+}
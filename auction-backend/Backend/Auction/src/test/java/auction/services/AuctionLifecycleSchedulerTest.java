@@ -0,0 +1,54 @@
+package auction.services;
+
+import auction.entities.DTO.FacetCountsDTO;
+import auction.entities.DTO.ItemFacetRow;
+import auction.entities.Item;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.repositories.ChangeCounterRepository;
+import auction.repositories.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The facets follow what the lifecycle update really changed, not what fell due.
+ */
+class AuctionLifecycleSchedulerTest {
+
+    @Test
+    void anAuctionExtendedAfterItsDeadlineWasTakenStaysActiveInTheFacets() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        ItemFacetCounter facets = new ItemFacetCounter(itemRepository, false);
+        AuctionLifecycleScheduler scheduler = new AuctionLifecycleScheduler(itemRepository,
+                mock(AuctionCloseService.class), mock(AuctionStreamService.class),
+                new ItemCache(itemRepository, mock(ChangeCounterRepository.class), new ConcurrentMapCacheManager()), facets);
+
+        LocalDateTime due = LocalDateTime.now().minusSeconds(1);
+        for (long id = 1; id <= 2; id++) {
+            facets.record(new ItemFacetRow(id, 10L, ItemStatus.APPROVED, AuctionStatus.ACTIVE, BigDecimal.TEN));
+            scheduler.schedule(Item.builder().id(id).status(ItemStatus.APPROVED)
+                    .auctionStatus(AuctionStatus.ACTIVE).endTime(due).build());
+        }
+        // Item 2 got a late bid, so the row's end time has moved and the update skips it.
+        when(itemRepository.endAuctions(anyCollection(), any(LocalDateTime.class))).thenReturn(1);
+        when(itemRepository.findFacetRowsByIds(anyCollection())).thenReturn(List.of(
+                new ItemFacetRow(1L, 10L, ItemStatus.APPROVED, AuctionStatus.ENDED, BigDecimal.TEN),
+                new ItemFacetRow(2L, 10L, ItemStatus.APPROVED, AuctionStatus.ACTIVE, BigDecimal.TEN)));
+
+        scheduler.fireDue();
+
+        FacetCountsDTO counts = facets.counts(null, null);
+        assertEquals(Map.of(AuctionStatus.ENDED, 1L, AuctionStatus.ACTIVE, 1L), counts.getAuctionStatuses());
+    }
+}
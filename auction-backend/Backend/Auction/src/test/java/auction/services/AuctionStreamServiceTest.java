@@ -0,0 +1,183 @@
+package auction.services;
+
+import auction.entities.DTO.BidEventDTO;
+import auction.entities.DTO.ItemSummaryDTO;
+import auction.entities.enums.AuctionStatus;
+import auction.repositories.ChangeCounterRepository;
+import auction.repositories.ItemRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Who gets to watch an auction, and what happens to watchers that stop reading.
+ */
+class AuctionStreamServiceTest {
+
+    private final Map<Long, AuctionStatus> auctions = new HashMap<>(Map.of(1L, AuctionStatus.ACTIVE,
+            2L, AuctionStatus.ACTIVE, 3L, AuctionStatus.ENDED));
+    private final AuctionStreamService streams = streams(4);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        streams.shutdown();
+    }
+
+    @Test
+    void aStalledWatcherIsDroppedAndTheOthersStillGetTheirEvents() throws Exception {
+        // Subscribed first, so the single delivery thread gets to it first
+        streams.subscribe(1L, new StalledEmitter(released));
+        CountDownLatch received = new CountDownLatch(2);
+        streams.subscribe(1L, new CountingEmitter(received));
+        streams.subscribe(2L, new CountingEmitter(received));
+
+        streams.publishBid(new BidEventDTO(1L, BigDecimal.TEN, "alice", LocalDateTime.now(), BigDecimal.valueOf(11)));
+        streams.publishBid(new BidEventDTO(2L, BigDecimal.TEN, "bob", LocalDateTime.now(), BigDecimal.valueOf(11)));
+
+        assertTrue(received.await(5, TimeUnit.SECONDS), "the healthy watchers did not get their events");
+        assertEquals(1, streams.getStats().getDroppedSubscribers());
+        assertEquals(2, streams.getStats().getSubscribers());
+    }
+
+    @Test
+    void stalledWatchersNeverTakeMoreThanTheSenderThreads() throws Exception {
+        AuctionStreamService bounded = streams(2);
+        try {
+            for (int i = 0; i < 3; i++) {
+                bounded.subscribe(1L, new StalledEmitter(released));
+            }
+
+            bounded.publishBid(new BidEventDTO(1L, BigDecimal.TEN, "alice", LocalDateTime.now(), BigDecimal.valueOf(11)));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (bounded.getStats().getDroppedSubscribers() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, bounded.getStats().getDroppedSubscribers());
+            assertEquals(2, stalledWrites(), "the third watcher must be dropped, not given another thread");
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void theLastWatcherToLeaveRemovesTheTopic() throws Exception {
+        streams.subscribe(1L, new FailingEmitter());
+        streams.subscribe(1L, new FailingEmitter());
+        assertEquals(1, streams.getStats().getItems().size());
+
+        // Both connections turn out to be gone on the next send
+        streams.publishBid(new BidEventDTO(1L, BigDecimal.TEN, "alice", LocalDateTime.now(), BigDecimal.valueOf(11)));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!streams.getStats().getItems().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(streams.getStats().getItems().isEmpty());
+    }
+
+    @Test
+    void endedAndUnknownAuctionsCannotBeWatched() {
+        assertNull(streams.subscribe(3L));
+        assertNull(streams.subscribe(4L));
+        assertTrue(streams.getStats().getItems().isEmpty());
+    }
+
+    private AuctionStreamService streams(int senderThreads) {
+        return new AuctionStreamService(itemCache(),
+                new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS),
+                0, 10, 16, 1, 200, senderThreads);
+    }
+
+    private static long stalledWrites() {
+        return Thread.getAllStackTraces().values().stream()
+                .filter(stack -> Arrays.stream(stack).anyMatch(frame ->
+                        frame.getClassName().equals(StalledEmitter.class.getName()) && frame.getMethodName().equals("send")))
+                .count();
+    }
+
+    private ItemCache itemCache() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findSummariesByIds(anyCollection())).thenAnswer(inv -> {
+            List<ItemSummaryDTO> summaries = new ArrayList<>();
+            for (Long itemId : inv.<Collection<Long>>getArgument(0)) {
+                if (auctions.containsKey(itemId)) {
+                    ItemSummaryDTO summary = new ItemSummaryDTO();
+                    summary.setId(itemId);
+                    summary.setAuctionStatus(auctions.get(itemId));
+                    summaries.add(summary);
+                }
+            }
+            return summaries;
+        });
+        return new ItemCache(itemRepository, mock(ChangeCounterRepository.class), new ConcurrentMapCacheManager());
+    }
+
+    private static final class CountingEmitter extends SseEmitter {
+
+        private final CountDownLatch sent;
+
+        CountingEmitter(CountDownLatch sent) {
+            this.sent = sent;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> frame) {
+            sent.countDown();
+        }
+    }
+
+    private static final class FailingEmitter extends SseEmitter {
+
+        @Override
+        public void send(Set<DataWithMediaType> frame) throws IOException {
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    // Blocks in every send until released, like a client that stopped reading
+    private static final class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch released;
+
+        StalledEmitter(CountDownLatch released) {
+            this.released = released;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> frame) throws IOException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package auction.services;
+
+import auction.services.BidJournal.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kills a process that is appending bids to the journal and checks that every bid it
+ * acknowledged is recovered from the files it left behind.
+ */
+class BidJournalCrashTest {
+
+    private static final int SEGMENT_RECORDS = 1_000;
+    private static final int APPENDER_THREADS = 8;
+    private static final int KILL_AFTER_ACKS = 5_000;
+    private static final String ACK = "ack ";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void acknowledgedBidsSurviveAKill() throws Exception {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Appender.class.getName(), dir.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        Set<Long> acknowledged = new HashSet<>();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while (acknowledged.size() < KILL_AFTER_ACKS && (line = out.readLine()) != null) {
+                readAck(line, acknowledged);
+            }
+            // SIGKILL through the handle; Process.destroyForcibly would also close our end of the pipe.
+            process.toHandle().destroyForcibly();
+            assertTrue(process.waitFor(30, TimeUnit.SECONDS), "The appender did not stop");
+            // Acknowledgements written before the kill
+            while ((line = out.readLine()) != null) {
+                readAck(line, acknowledged);
+            }
+        }
+        assertTrue(acknowledged.size() >= KILL_AFTER_ACKS, "The appender stopped early");
+
+        try (BidJournal journal = new BidJournal(dir, SEGMENT_RECORDS)) {
+            List<Entry> recovered = journal.take(Integer.MAX_VALUE, 0, TimeUnit.MILLISECONDS);
+            Set<Long> recoveredIds = new HashSet<>();
+            for (int i = 0; i < recovered.size(); i++) {
+                Entry entry = recovered.get(i);
+                assertEquals(i + 1, entry.seq());
+                assertEquals(Appender.amount(entry.bidId()), entry.amount());
+                assertEquals(entry.bidId() % 7, entry.itemId());
+                recoveredIds.add(entry.bidId());
+            }
+
+            acknowledged.removeAll(recoveredIds);
+            assertTrue(acknowledged.isEmpty(), "Acknowledged bids lost: " + acknowledged);
+            assertEquals(recovered.size(), journal.lastRecoveredSeq());
+        }
+    }
+
+    @Test
+    void recoveryStopsAtATornRecord() throws IOException, InterruptedException {
+        try (BidJournal journal = new BidJournal(dir, 16)) {
+            for (long bidId = 1; bidId <= 3; bidId++) {
+                journal.append(bidId, 1, 2, 3, Appender.amount(bidId), LocalDateTime.now());
+            }
+        }
+        // Damage the amount of the third record, as if the process died while writing it.
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 2L * BidJournal.RECORD_SIZE + 40);
+        }
+
+        try (BidJournal journal = new BidJournal(dir, 16)) {
+            List<Entry> recovered = journal.take(10, 0, TimeUnit.MILLISECONDS);
+            assertEquals(List.of(1L, 2L), recovered.stream().map(Entry::bidId).toList());
+            assertEquals(3, journal.append(4, 1, 2, 3, BigDecimal.TEN, LocalDateTime.now()).seq());
+        }
+        try (BidJournal journal = new BidJournal(dir, 16)) {
+            List<Entry> recovered = journal.take(10, 0, TimeUnit.MILLISECONDS);
+            assertEquals(List.of(1L, 2L, 4L), recovered.stream().map(Entry::bidId).toList());
+
+            journal.release(3);
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(1, files.count(), "Only the open segment is kept");
+            }
+        }
+    }
+
+    @Test
+    void segmentsRollOverWhileTheSyncThreadForcesThem() throws Exception {
+        int threads = 8;
+        int appendsPerThread = 2_000;
+        try (BidJournal journal = new BidJournal(dir, 1)) {
+            AtomicLong bidIds = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                appenders.add(pool.submit(() -> {
+                    for (int i = 0; i < appendsPerThread; i++) {
+                        long bidId = bidIds.incrementAndGet();
+                        journal.append(bidId, 1, 2, 3, Appender.amount(bidId), LocalDateTime.now());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> appender : appenders) {
+                appender.get(1, TimeUnit.MINUTES);
+            }
+            pool.shutdown();
+
+            assertEquals((long) threads * appendsPerThread, journal.lastSeq());
+            // The sync thread survived every rollover, so appends still return.
+            assertEquals(journal.lastSeq() + 1, journal.append(0, 1, 2, 3, BigDecimal.TEN, LocalDateTime.now()).seq());
+        }
+    }
+
+    private static void readAck(String line, Set<Long> acknowledged) {
+        if (line.startsWith(ACK)) {
+            acknowledged.add(Long.parseLong(line.substring(ACK.length())));
+        }
+    }
+
+    /**
+     * Appends bids from several threads until it is killed, printing each bid id once
+     * its append returned.
+     */
+    public static final class Appender {
+
+        public static void main(String[] args) throws IOException {
+            BidJournal journal = new BidJournal(Path.of(args[0]), SEGMENT_RECORDS);
+            AtomicLong bidIds = new AtomicLong();
+            for (int t = 0; t < APPENDER_THREADS; t++) {
+                new Thread(() -> {
+                    while (true) {
+                        long bidId = bidIds.incrementAndGet();
+                        try {
+                            journal.append(bidId, bidId % 7, 1, 2, amount(bidId), LocalDateTime.now());
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        synchronized (System.out) {
+                            System.out.println(ACK + bidId);
+                            System.out.flush();
+                        }
+                    }
+                }).start();
+            }
+        }
+
+        static BigDecimal amount(long bidId) {
+            return BigDecimal.valueOf(bidId * 25, 2);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package auction.services;
+
+import auction.entities.Bid;
+import auction.entities.Category;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.Item;
+import auction.entities.RO.BidRO;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.Role;
+import auction.repositories.BidRepository;
+import auction.repositories.CategoryRepository;
+import auction.repositories.ItemRepository;
+import auction.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static auction.TestFixtures.item;
+import static auction.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Places bids in journal mode and checks that the writer stores them under the ids
+ * they were acknowledged with and moves the item along.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "auction.bids.journal.enabled=true"
+})
+class BidJournalWriterTest {
+
+    @Autowired
+    private BidService bidService;
+    @Autowired
+    private BidJournalWriter bidJournalWriter;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BidRepository bidRepository;
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) throws IOException {
+        String dir = Files.createTempDirectory("bid-journal").toString();
+        registry.add("auction.bids.journal.dir", () -> dir);
+    }
+
+    @Test
+    void journaledBidsAreStoredWithTheirItem() {
+        User seller = userRepository.save(user("journal-seller", Role.SELLER));
+        User customer = userRepository.save(user("journal-customer", Role.CUSTOMER));
+        Category category = categoryRepository.save(Category.builder().name("Journal").build());
+        Item item = itemRepository.save(item("Journaled lot", seller, category)
+                .auctionStatus(AuctionStatus.ACTIVE)
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build());
+
+        UserPrincipal principal = new UserPrincipal(customer.getId(), Role.CUSTOMER);
+        List<Long> bidIds = new ArrayList<>();
+        for (int amount = 20; amount <= 60; amount += 10) {
+            Bid bid = bidService.placeBid(BidRO.builder()
+                    .itemId(item.getId())
+                    .customerId(customer.getId())
+                    .bidAmount(BigDecimal.valueOf(amount))
+                    .build(), principal);
+            bidIds.add(bid.getId());
+        }
+        bidJournalWriter.awaitPersisted();
+
+        List<Bid> stored = bidRepository.findAllById(bidIds);
+        assertEquals(bidIds.size(), stored.size());
+        Item updated = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(60).compareTo(updated.getCurrentPrice()));
+        assertEquals(bidIds.size(), updated.getBidCount());
+        assertEquals(customer.getId(), updated.getLeadingBidderId());
+        assertTrue(updated.getVersion() > item.getVersion());
+    }
+}
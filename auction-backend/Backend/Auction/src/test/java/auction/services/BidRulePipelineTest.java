@@ -0,0 +1,62 @@
+package auction.services;
+
+import auction.configs.BidRuleConfig;
+import auction.entities.DTO.BidRuleStatsDTO;
+import auction.entities.DTO.UserIdentityDTO;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.Item;
+import auction.entities.enums.Role;
+import auction.services.BidRule.Stage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The cheap rules turn a bad bid away before the item is loaded, and every rule
+ * that ran is counted.
+ */
+class BidRulePipelineTest {
+
+    private final BidRuleConfig rules = new BidRuleConfig();
+    private final BidIncrementTable incrementTable = new BidIncrementTable(BidIncrementTable.DEFAULT_BANDS);
+    // Registered out of order on purpose
+    private final BidRulePipeline pipeline = new BidRulePipeline(List.of(
+            rules.minimumIncrementRule(incrementTable), rules.notOwnItemRule(), rules.activeAuctionRule(),
+            rules.bidderRoleRule(), rules.ownAccountRule()));
+
+    @Test
+    void aBidForSomeoneElseNeverLoadsTheItem() {
+        AtomicInteger itemLoads = new AtomicInteger();
+        BidContext bid = new BidContext(1L, 2L, BigDecimal.TEN, new UserPrincipal(3L, Role.CUSTOMER),
+                itemId -> {
+                    itemLoads.incrementAndGet();
+                    return new Item();
+                },
+                customerId -> new UserIdentityDTO(customerId, "bidder", Role.CUSTOMER));
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.check(Stage.ADMISSION, bid));
+
+        assertEquals(0, itemLoads.get());
+        List<BidRuleStatsDTO> stats = pipeline.getStats();
+        assertEquals(List.of("own-account", "bidder-role", "not-own-item", "active-auction", "minimum-increment"),
+                stats.stream().map(BidRuleStatsDTO::getName).toList());
+        assertEquals(1, stats.get(0).getEvaluations());
+        assertEquals(1, stats.get(0).getRejections());
+        assertEquals(0, stats.get(1).getEvaluations());
+    }
+
+    @Test
+    void theIncrementGrowsWithThePriceBand() {
+        Item item = Item.builder().bidIncrement(BigDecimal.ONE).build();
+
+        // Below 25 the item's own increment of 1 is more than the band's
+        assertEquals(0, new BigDecimal("11").compareTo(incrementTable.minimumNextBid(item, BigDecimal.TEN)));
+        assertEquals(0, new BigDecimal("202.50").compareTo(incrementTable.minimumNextBid(item, BigDecimal.valueOf(200))));
+        assertEquals(0, new BigDecimal("1025").compareTo(incrementTable.minimumNextBid(item, BigDecimal.valueOf(1000))));
+    }
+}
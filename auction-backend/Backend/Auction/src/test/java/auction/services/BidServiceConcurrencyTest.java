@@ -0,0 +1,235 @@
+package auction.services;
+
+import auction.configs.BidRuleConfig;
+import auction.entities.Bid;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.Item;
+import auction.entities.RO.BidRO;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.Role;
+import auction.repositories.BidRepository;
+import auction.repositories.ChangeCounterRepository;
+import auction.repositories.ItemRepository;
+import auction.repositories.ItemRepository.AuctionOutcome;
+import auction.repositories.ProxyBidRepository;
+import auction.repositories.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fires concurrent bids at a handful of items and checks that the stored bid
+ * sequence of every item only ever goes up by at least the bid increment.
+ */
+class BidServiceConcurrencyTest {
+
+    private static final int ITEMS = 3;
+    private static final int BIDDERS = 40;
+    private static final int THREADS = 32;
+    private static final int BIDS = 6000;
+
+    private final Map<Long, Item> items = new HashMap<>();
+    private final Map<Long, User> bidders = new HashMap<>();
+    private final Map<Long, List<Bid>> storedBids = new HashMap<>();
+    private final AtomicLong bidIds = new AtomicLong();
+
+    private BidService bidService;
+    private CurrentPriceIndex currentPriceIndex;
+    private BidRepository bidRepository;
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void setUp() {
+        User seller = User.builder().id(1000L).username("seller").role(Role.SELLER).build();
+        for (long id = 1; id <= ITEMS; id++) {
+            Item item = Item.builder()
+                    .id(id)
+                    .name("Lot " + id)
+                    .seller(seller)
+                    .startingPrice(BigDecimal.valueOf(100))
+                    .bidIncrement(BigDecimal.ONE)
+                    .status(ItemStatus.APPROVED)
+                    .auctionStatus(AuctionStatus.ACTIVE)
+                    .version(0L)
+                    .build();
+            items.put(id, item);
+            storedBids.put(id, Collections.synchronizedList(new ArrayList<>()));
+        }
+        for (long id = 1; id <= BIDDERS; id++) {
+            bidders.put(id, User.builder().id(id).username("bidder" + id).role(Role.CUSTOMER).build());
+        }
+
+        bidRepository = mock(BidRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        ProxyBidRepository proxyBidRepository = mock(ProxyBidRepository.class);
+
+        when(itemRepository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(items.get(inv.<Long>getArgument(0))));
+        when(userRepository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(bidders.get(inv.<Long>getArgument(0))));
+        when(userRepository.getReferenceById(anyLong())).thenAnswer(inv -> bidders.get(inv.<Long>getArgument(0)));
+        when(bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(anyLong())).thenReturn(Optional.empty());
+        when(bidRepository.countByItemId(anyLong())).thenReturn(0L);
+        when(itemRepository.applyBid(anyLong(), any(BigDecimal.class), anyLong(), anyLong())).thenAnswer(inv -> {
+            Item item = items.get(inv.<Long>getArgument(0));
+            return item.getVersion().equals(inv.getArgument(3)) ? 1 : 0;
+        });
+        when(bidRepository.save(any(Bid.class))).thenAnswer(inv -> {
+            Bid bid = inv.getArgument(0);
+            bid.setId(bidIds.incrementAndGet());
+            storedBids.get(bid.getItem().getId()).add(bid);
+            return bid;
+        });
+
+        currentPriceIndex = new CurrentPriceIndex(bidRepository);
+        ItemCache itemCache = new ItemCache(itemRepository, mock(ChangeCounterRepository.class), new ConcurrentMapCacheManager());
+        BidRuleConfig rules = new BidRuleConfig();
+        BidIncrementTable incrementTable = new BidIncrementTable(BidIncrementTable.DEFAULT_BANDS);
+        bidService = new BidService(bidRepository, itemRepository, userRepository,
+                new UserService(userRepository, itemCache, mock(TokenService.class)), itemCache,
+                new ItemFacetCounter(itemRepository, false),
+                currentPriceIndex, new BidSequencer(16), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new AuctionStreamService(itemCache, new ObjectMapper(), 0, 100, 16, 1, 1000, 4), mock(BidJournalWriter.class),
+                proxyBidRepository, new ProxyBidBook(proxyBidRepository), mock(AuctionLifecycleScheduler.class),
+                new BidRulePipeline(List.of(rules.ownAccountRule(), rules.bidderRoleRule(), rules.activeAuctionRule(),
+                        rules.notOwnItemRule(), rules.buyNowRule(), rules.minimumIncrementRule(incrementTable))),
+                incrementTable, mock(AuctionCloseService.class));
+    }
+
+    @Test
+    void concurrentBidsOnTheSameItemNeverBothWin() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int i = 0; i < BIDS; i++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long itemId = random.nextLong(1, ITEMS + 1);
+                long bidderId = random.nextLong(1, BIDDERS + 1);
+                start.await();
+
+                // Bidders act on a price they saw a moment ago, so many of them race for the same amount.
+                BigDecimal seen = currentPriceIndex.get(itemId).hasBids()
+                        ? currentPriceIndex.get(itemId).getAmount()
+                        : items.get(itemId).getStartingPrice();
+                BidRO bidRO = BidRO.builder()
+                        .itemId(itemId)
+                        .customerId(bidderId)
+                        .bidAmount(seen.add(BigDecimal.valueOf(random.nextInt(1, 3))))
+                        .build();
+                UserPrincipal principal = new UserPrincipal(bidderId, Role.CUSTOMER);
+
+                try {
+                    bidService.placeBid(bidRO, principal);
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES), "bidding did not finish in time");
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        assertEquals(BIDS, accepted.get() + rejected.get());
+        int stored = 0;
+        for (Map.Entry<Long, List<Bid>> entry : storedBids.entrySet()) {
+            Item item = items.get(entry.getKey());
+            List<Bid> bids = entry.getValue();
+            stored += bids.size();
+            for (int i = 1; i < bids.size(); i++) {
+                BigDecimal previous = bids.get(i - 1).getBidAmount();
+                BigDecimal current = bids.get(i).getBidAmount();
+                assertTrue(current.compareTo(previous.add(item.getBidIncrement())) >= 0,
+                        "item " + item.getId() + " accepted " + current + " after " + previous);
+            }
+            if (!bids.isEmpty()) {
+                assertEquals(bids.get(bids.size() - 1).getBidAmount(), currentPriceIndex.get(item.getId()).getAmount());
+                assertEquals(bids.get(bids.size() - 1).getBidAmount(), item.getCurrentPrice());
+                assertEquals(bids.size(), item.getBidCount());
+            }
+        }
+        assertEquals(accepted.get(), stored);
+
+        System.out.printf("%d bids (%d accepted, %d rejected) on %d items from %d threads in %.3fs: %.0f bids/s%n",
+                BIDS, accepted.get(), rejected.get(), ITEMS, THREADS, seconds, BIDS / seconds);
+    }
+
+    @Test
+    void aRetryChecksThePriceAgainstTheReloadedRow() {
+        Item item = items.get(1L);
+        Bid elsewhere = Bid.builder().id(99L).item(item).customer(bidders.get(2L)).bidAmount(BigDecimal.valueOf(500)).build();
+        // Another node places a bid of 500 between our read and our write.
+        when(itemRepository.applyBid(anyLong(), any(BigDecimal.class), anyLong(), anyLong())).thenAnswer(inv -> {
+            item.setCurrentPrice(elsewhere.getBidAmount());
+            item.setBidCount(1);
+            item.setLeadingBidderId(2L);
+            item.setVersion(item.getVersion() + 1);
+            when(bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(1L)).thenReturn(Optional.of(elsewhere));
+            when(bidRepository.countByItemId(1L)).thenReturn(1L);
+            return 0;
+        });
+        BidRO bidRO = BidRO.builder().itemId(1L).customerId(1L).bidAmount(BigDecimal.valueOf(110)).build();
+
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+                () -> bidService.placeBid(bidRO, new UserPrincipal(1L, Role.CUSTOMER)));
+
+        // Good enough against the price we had seen, too low against the one the row holds now
+        assertTrue(rejected.getMessage().startsWith("Bid must be at least 5"), rejected.getMessage());
+        assertTrue(storedBids.get(1L).isEmpty());
+        assertEquals(elsewhere.getBidAmount(), currentPriceIndex.get(1L).getAmount());
+    }
+
+    @Test
+    void theWinnerIsReadFromTheStoredRowsRatherThanThisNodesPrices() {
+        Bid seenHere = Bid.builder().id(7L).item(items.get(1L)).customer(bidders.get(3L)).bidAmount(BigDecimal.valueOf(150)).build();
+        when(bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(1L)).thenReturn(Optional.of(seenHere));
+        when(bidRepository.countByItemId(1L)).thenReturn(1L);
+        currentPriceIndex.get(1L);
+        // Another node accepted a higher bid before the auction ended.
+        Bid winning = Bid.builder().id(8L).item(items.get(1L)).customer(bidders.get(4L)).bidAmount(BigDecimal.valueOf(200)).build();
+        when(bidRepository.findFirstByItemIdOrderByBidAmountDescIdAsc(1L)).thenReturn(Optional.of(winning));
+        AuctionOutcome outcome = mock(AuctionOutcome.class);
+        when(outcome.hasEnded()).thenReturn(true);
+        when(outcome.getLeadingBidderId()).thenReturn(4L);
+        when(itemRepository.findAuctionOutcomeById(1L)).thenReturn(Optional.of(outcome));
+
+        assertTrue(bidService.isUserAuctionWinner(1L, 4L));
+        assertFalse(bidService.isUserAuctionWinner(1L, 3L));
+        assertEquals(Optional.of(winning), bidService.getAuctionWinner(1L));
+    }
+}
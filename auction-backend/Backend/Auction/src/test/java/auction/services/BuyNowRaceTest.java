@@ -0,0 +1,224 @@
+package auction.services;
+
+import auction.TestFixtures;
+import auction.entities.Bid;
+import auction.entities.Category;
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.Item;
+import auction.entities.RO.BidRO;
+import auction.entities.RO.BuyNowRO;
+import auction.entities.User;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.Role;
+import auction.repositories.CategoryRepository;
+import auction.repositories.ItemRepository;
+import auction.repositories.UserRepository;
+import auction.services.AuctionCloseService.ClosedAuction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static auction.TestFixtures.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Several buyers try to buy an item while bidders keep bidding on it. Exactly one
+ * purchase may win, and no bid may land after it.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:buynow;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class BuyNowRaceTest {
+
+    private static final int BIDDERS = 6;
+    private static final int BUYERS = 3;
+    private static final int BIDS_BEFORE_BUYING = 200;
+    private static final BigDecimal BUY_NOW_PRICE = BigDecimal.valueOf(100_000);
+
+    @Autowired
+    private BidService bidService;
+    @Autowired
+    private AuctionCloseService auctionCloseService;
+    @Autowired
+    private CurrentPriceIndex currentPriceIndex;
+    @Autowired
+    private BidIncrementTable bidIncrementTable;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exactlyOneBuyerWinsAgainstAFloodOfBids() throws Exception {
+        User seller = userRepository.save(user("race-seller", Role.SELLER));
+        Item item = itemRepository.save(item("Raced lot", seller, BUY_NOW_PRICE, null));
+        List<User> bidders = new ArrayList<>();
+        for (int i = 0; i < BIDDERS; i++) {
+            bidders.add(userRepository.save(user("race-bidder-" + i, Role.CUSTOMER)));
+        }
+        List<User> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            buyers.add(userRepository.save(user("race-buyer-" + i, Role.CUSTOMER)));
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch flooding = new CountDownLatch(BIDS_BEFORE_BUYING);
+        ExecutorService pool = Executors.newFixedThreadPool(BIDDERS + BUYERS);
+        for (User bidder : bidders) {
+            pool.submit(() -> {
+                while (!stop.get()) {
+                    try {
+                        CurrentPriceIndex.CurrentPrice price = currentPriceIndex.get(item.getId());
+                        BigDecimal last = price.hasBids() ? price.getAmount() : item.getStartingPrice();
+                        bidService.placeBid(BidRO.builder()
+                                .itemId(item.getId())
+                                .customerId(bidder.getId())
+                                .bidAmount(bidIncrementTable.minimumNextBid(item, last))
+                                .build(), new UserPrincipal(bidder.getId(), Role.CUSTOMER));
+                        accepted.incrementAndGet();
+                        flooding.countDown();
+                    } catch (RuntimeException e) {
+                        // Outbid in the meantime, or the item is gone
+                    }
+                }
+            });
+        }
+
+        assertTrue(flooding.await(1, TimeUnit.MINUTES), "bidding did not get going");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Bid>> purchases = new ArrayList<>();
+        for (User buyer : buyers) {
+            purchases.add(pool.submit(() -> {
+                start.await();
+                return bidService.buyNow(new BuyNowRO(item.getId(), buyer.getId()),
+                        new UserPrincipal(buyer.getId(), Role.CUSTOMER));
+            }));
+        }
+        start.countDown();
+
+        List<Bid> won = new ArrayList<>();
+        for (Future<Bid> purchase : purchases) {
+            try {
+                won.add(purchase.get(1, TimeUnit.MINUTES));
+            } catch (Exception e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException, "unexpected failure: " + e.getCause());
+            }
+        }
+        // Keep bidding for a moment after the sale; none of it may get through.
+        Thread.sleep(200);
+        int acceptedAtSale = accepted.get();
+        Thread.sleep(200);
+        stop.set(true);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES), "bidding did not finish in time");
+
+        assertEquals(1, won.size(), "exactly one purchase must succeed");
+        assertEquals(acceptedAtSale, accepted.get());
+        Bid purchase = won.get(0);
+
+        Item sold = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(ItemStatus.SOLD, sold.getStatus());
+        assertEquals(AuctionStatus.ENDED, sold.getAuctionStatus());
+        assertEquals(0, BUY_NOW_PRICE.compareTo(sold.getCurrentPrice()));
+        assertEquals(purchase.getCustomer().getId(), sold.getLeadingBidderId());
+
+        // Stored times are rounded to microseconds, so "after" starts one microsecond later.
+        Map<String, Object> bids = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS n, SUM(CASE WHEN bid_amount >= ? THEN 1 ELSE 0 END) AS at_price, " +
+                        "SUM(CASE WHEN bid_time > ? THEN 1 ELSE 0 END) AS later FROM bids WHERE item_id = ?",
+                BUY_NOW_PRICE, Timestamp.valueOf(purchase.getBidTime().plusNanos(1_000)), item.getId());
+        assertEquals(accepted.get() + 1, ((Number) bids.get("n")).intValue());
+        assertEquals(sold.getBidCount(), ((Number) bids.get("n")).intValue());
+        assertEquals(1, ((Number) bids.get("at_price")).intValue());
+        assertEquals(0, ((Number) bids.get("later")).intValue());
+
+        Map<String, Object> payment = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS n, MAX(p.customer_id) AS customer_id, MAX(p.amount) AS amount " +
+                        "FROM payments p JOIN bids b ON b.bid_id = p.bid_id WHERE b.item_id = ?", item.getId());
+        assertEquals(1, ((Number) payment.get("n")).intValue());
+        assertEquals(purchase.getCustomer().getId(), ((Number) payment.get("customer_id")).longValue());
+        assertEquals(0, BUY_NOW_PRICE.compareTo((BigDecimal) payment.get("amount")));
+    }
+
+    @Test
+    void anAuctionBelowItsReserveEndsUnsold() {
+        User seller = userRepository.save(user("reserve-seller", Role.SELLER));
+        User bidder = userRepository.save(user("reserve-bidder", Role.CUSTOMER));
+        Item item = itemRepository.save(item("Reserved lot", seller, null, BigDecimal.valueOf(1_000)));
+        bidService.placeBid(BidRO.builder()
+                .itemId(item.getId())
+                .customerId(bidder.getId())
+                .bidAmount(BigDecimal.valueOf(500))
+                .build(), new UserPrincipal(bidder.getId(), Role.CUSTOMER));
+
+        jdbcTemplate.update("UPDATE items SET auction_status = 'ENDED' WHERE item_id = ?", item.getId());
+        List<ClosedAuction> closed = auctionCloseService.close(List.of(item.getId()));
+
+        assertEquals(1, closed.size());
+        assertFalse(closed.get(0).sold());
+        assertEquals(ItemStatus.EXPIRED, itemRepository.findById(item.getId()).orElseThrow().getStatus());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments p JOIN bids b ON b.bid_id = p.bid_id WHERE b.item_id = ?",
+                Integer.class, item.getId()));
+    }
+
+    @Test
+    void aBidAcceptedOnAnotherNodeWinsTheSettlement() {
+        User seller = userRepository.save(user("settle-seller", Role.SELLER));
+        User here = userRepository.save(user("settle-bidder-here", Role.CUSTOMER));
+        User elsewhere = userRepository.save(user("settle-bidder-elsewhere", Role.CUSTOMER));
+        Item item = itemRepository.save(item("Settled lot", seller, null, null));
+        bidService.placeBid(BidRO.builder()
+                .itemId(item.getId())
+                .customerId(here.getId())
+                .bidAmount(BigDecimal.valueOf(500))
+                .build(), new UserPrincipal(here.getId(), Role.CUSTOMER));
+
+        // Stored by another node, so this node's price index never saw it
+        jdbcTemplate.update("INSERT INTO bids (bid_id, bid_amount, bid_time, customer_id, item_id, seller_id) " +
+                "VALUES (?, 700, CURRENT_TIMESTAMP, ?, ?, ?)", 900_000_000L, elsewhere.getId(), item.getId(), seller.getId());
+        jdbcTemplate.update("UPDATE items SET auction_status = 'ENDED' WHERE item_id = ?", item.getId());
+        List<ClosedAuction> closed = auctionCloseService.close(List.of(item.getId()));
+
+        assertEquals(1, closed.size());
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(closed.get(0).winningAmount()));
+        Map<String, Object> payment = jdbcTemplate.queryForMap(
+                "SELECT p.customer_id, p.bid_id FROM payments p JOIN bids b ON b.bid_id = p.bid_id WHERE b.item_id = ?",
+                item.getId());
+        assertEquals(elsewhere.getId(), ((Number) payment.get("customer_id")).longValue());
+        assertEquals(900_000_000L, ((Number) payment.get("bid_id")).longValue());
+        // The settled item is no longer held; asking again reads the stored bids.
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(currentPriceIndex.get(item.getId()).getAmount()));
+    }
+
+    private Item item(String name, User seller, BigDecimal buyNowPrice, BigDecimal reservePrice) {
+        Category category = categoryRepository.save(Category.builder().name(name + " category").build());
+        return TestFixtures.item(name, seller, category)
+                .buyNowPrice(buyNowPrice)
+                .reservePrice(reservePrice)
+                .auctionStatus(AuctionStatus.ACTIVE)
+                .endTime(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+}
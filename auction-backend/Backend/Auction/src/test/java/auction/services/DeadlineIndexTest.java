@@ -0,0 +1,65 @@
+package auction.services;
+
+import auction.entities.enums.AuctionStatus;
+import auction.services.DeadlineIndex.Deadline;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rescheduling in the deadline index, as a soft-close extension does it.
+ */
+class DeadlineIndexTest {
+
+    @Test
+    void anExtensionReplacesTheOldDeadline() {
+        DeadlineIndex index = new DeadlineIndex();
+        LocalDateTime now = LocalDateTime.now();
+        index.put(1L, AuctionStatus.ENDED, now.minusSeconds(2));
+        index.put(2L, AuctionStatus.ENDED, now.minusSeconds(1));
+        index.put(3L, AuctionStatus.ACTIVE, now.minusSeconds(3));
+
+        index.put(2L, AuctionStatus.ENDED, now.plusMinutes(1));
+
+        List<Deadline> due = index.drainDue();
+        assertEquals(List.of(3L, 1L), due.stream().map(Deadline::itemId).toList());
+        assertEquals(1, index.size());
+        assertTrue(index.drainDue().isEmpty());
+    }
+
+    @Test
+    void removedItemsNeverFallDue() {
+        DeadlineIndex index = new DeadlineIndex();
+        index.put(1L, AuctionStatus.ACTIVE, LocalDateTime.now().minusSeconds(1));
+        index.put(1L, AuctionStatus.ENDED, LocalDateTime.now().minusSeconds(1));
+
+        index.remove(1L);
+
+        assertTrue(index.drainDue().isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void anEarlierDeadlineWakesTheWaitingWorker() throws Exception {
+        DeadlineIndex index = new DeadlineIndex();
+        index.put(1L, AuctionStatus.ENDED, LocalDateTime.now().plusHours(1));
+        CompletableFuture<List<Deadline>> due = CompletableFuture.supplyAsync(() -> {
+            try {
+                return index.awaitDue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        index.put(2L, AuctionStatus.ENDED, LocalDateTime.now().plusNanos(50_000_000));
+
+        assertEquals(List.of(2L), due.get(5, TimeUnit.SECONDS).stream().map(Deadline::itemId).toList());
+    }
+}
@@ -0,0 +1,65 @@
+package auction.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Only real images get into the store, and nothing is served with a type a browser
+ * would run.
+ */
+class ImageStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void imagesAreStoredAndServedWithTheirType() throws IOException {
+        ImageStore store = new ImageStore(dir.toString());
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB), "png", png);
+
+        String hash = store.store(png.toByteArray());
+
+        assertEquals("image/png", store.contentType(store.find(hash).orElseThrow()));
+    }
+
+    @Test
+    void markupIsRejected() throws IOException {
+        ImageStore store = new ImageStore(dir.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> store.store(
+                "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> store.store(
+                "<svg xmlns=\"http://www.w3.org/2000/svg\" onload=\"alert(1)\"/>".getBytes(StandardCharsets.UTF_8)));
+        try (var files = Files.walk(dir)) {
+            assertEquals(1, files.count(), "Nothing but the root may be left behind");
+        }
+    }
+
+    @Test
+    void aFileWithImageMagicBytesMustAlsoDecode() {
+        ImageStore store = new ImageStore(dir.toString());
+        byte[] fake = Arrays.copyOf(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 64);
+
+        assertThrows(IllegalArgumentException.class, () -> store.store(fake));
+    }
+
+    @Test
+    void unknownContentIsServedAsOpaqueBytes() throws IOException {
+        Path html = Files.writeString(dir.resolve("page"), "<html></html>");
+
+        assertEquals("application/octet-stream", new ImageStore(dir.toString()).contentType(html));
+    }
+}
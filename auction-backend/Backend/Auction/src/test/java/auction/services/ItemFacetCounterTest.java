@@ -0,0 +1,58 @@
+package auction.services;
+
+import auction.entities.DTO.FacetCountsDTO;
+import auction.entities.DTO.ItemFacetRow;
+import auction.entities.enums.AuctionStatus;
+import auction.entities.enums.ItemStatus;
+import auction.entities.enums.PriceBand;
+import auction.repositories.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ItemFacetCounterTest {
+
+    private ItemFacetCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new ItemFacetCounter(mock(ItemRepository.class), false);
+        counter.record(new ItemFacetRow(1L, 10L, ItemStatus.APPROVED, AuctionStatus.ACTIVE, BigDecimal.valueOf(20)));
+        counter.record(new ItemFacetRow(2L, 10L, ItemStatus.APPROVED, AuctionStatus.NOT_STARTED, BigDecimal.valueOf(75)));
+        counter.record(new ItemFacetRow(3L, 20L, ItemStatus.PENDING, AuctionStatus.NOT_STARTED, BigDecimal.valueOf(600)));
+    }
+
+    @Test
+    void eachFacetIgnoresOnlyItsOwnFilter() {
+        FacetCountsDTO facets = counter.counts(ItemStatus.APPROVED, 10L);
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of(10L, 2L), facets.getCategories());
+        assertEquals(Map.of(ItemStatus.APPROVED, 2L), facets.getStatuses());
+        assertEquals(Map.of(PriceBand.UNDER_50, 1L, PriceBand.FROM_50, 1L), facets.getPriceBands());
+
+        FacetCountsDTO byCategory = counter.counts(null, 10L);
+        assertEquals(2, byCategory.getTotal());
+        assertEquals(Map.of(10L, 2L, 20L, 1L), byCategory.getCategories());
+    }
+
+    @Test
+    void writesMoveItemsBetweenCounts() {
+        counter.updatePrice(1L, BigDecimal.valueOf(150));
+        counter.updateAuctionStatus(List.of(1L, 2L), AuctionStatus.ACTIVE, AuctionStatus.ENDED);
+        counter.updateStatus(1L, ItemStatus.SOLD);
+        counter.remove(3L);
+
+        FacetCountsDTO facets = counter.counts(null, null);
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of(ItemStatus.SOLD, 1L, ItemStatus.APPROVED, 1L), facets.getStatuses());
+        assertEquals(Map.of(AuctionStatus.ENDED, 1L, AuctionStatus.NOT_STARTED, 1L), facets.getAuctionStatuses());
+        assertEquals(Map.of(PriceBand.FROM_100, 1L, PriceBand.FROM_50, 1L), facets.getPriceBands());
+    }
+}
@@ -0,0 +1,55 @@
+package auction.services;
+
+import auction.entities.DTO.ItemSearchRow;
+import auction.entities.enums.ItemStatus;
+import auction.repositories.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ItemSearchIndexTest {
+
+    private static final Long WATCHES = 1L;
+    private static final Long CAMERAS = 2L;
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex(mock(ItemRepository.class), false);
+        index.index(new ItemSearchRow(1L, "Vintage Omega watch", "Swiss movement, serviced in 2020.",
+                WATCHES, "Watches", ItemStatus.APPROVED));
+        index.index(new ItemSearchRow(2L, "Leather strap", "Fits most vintage watches.",
+                WATCHES, "Watches", ItemStatus.APPROVED));
+        index.index(new ItemSearchRow(3L, "Leica M6", "Film camera, café find.",
+                CAMERAS, "Cameras", ItemStatus.PENDING));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L), index.search("vintage", null, null, 10));
+    }
+
+    @Test
+    void everyWordHasToMatchAndPrefixesExpand() {
+        assertEquals(List.of(1L), index.search("omega WAT", null, null, 10));
+        assertEquals(List.of(3L), index.search("cafe", null, null, 10));
+        assertEquals(List.of(), index.search("omega camera", null, null, 10));
+    }
+
+    @Test
+    void filtersAndUpdatesApply() {
+        assertEquals(List.of(), index.search("leica", ItemStatus.APPROVED, null, 10));
+        index.updateStatus(3L, ItemStatus.APPROVED);
+        assertEquals(List.of(3L), index.search("leica", ItemStatus.APPROVED, CAMERAS, 10));
+
+        index.index(new ItemSearchRow(2L, "Nylon strap", null, WATCHES, "Watches", ItemStatus.APPROVED));
+        assertEquals(List.of(), index.search("leather", null, null, 10));
+        index.remove(1L);
+        assertEquals(List.of(), index.search("omega", null, null, 10));
+    }
+}
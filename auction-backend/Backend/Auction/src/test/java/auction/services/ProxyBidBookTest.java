@@ -0,0 +1,79 @@
+package auction.services;
+
+import auction.services.ProxyBidBook.AutoBid;
+import auction.services.ProxyBidBook.Proxy;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bids proxies place against a standing bid, for the cases the bidding page shows.
+ */
+class ProxyBidBookTest {
+
+    private static final BigDecimal OPENING = amount(11);
+    private static final BigDecimal INCREMENT = amount(5);
+    private static final LocalDateTime EARLY = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private static final LocalDateTime LATE = EARLY.plusMinutes(1);
+
+    @Test
+    void aLoneProxyOpensTheAuction() {
+        List<AutoBid> bids = ProxyBidBook.resolve(null, null, OPENING, price -> INCREMENT,
+                List.of(new Proxy(1L, amount(100), EARLY)));
+
+        assertEquals(List.of(new AutoBid(1L, OPENING)), bids);
+    }
+
+    @Test
+    void theLeadersProxyAnswersAManualBid() {
+        // Customer 1 leads with a maximum of 100; customer 2 just bid 40 by hand.
+        List<AutoBid> bids = ProxyBidBook.resolve(2L, amount(40), OPENING, price -> INCREMENT,
+                List.of(new Proxy(1L, amount(100), EARLY)));
+
+        assertEquals(List.of(new AutoBid(1L, amount(45))), bids);
+    }
+
+    @Test
+    void theHigherMaximumWinsOneIncrementAboveTheRunnerUp() {
+        List<AutoBid> bids = ProxyBidBook.resolve(1L, amount(20), OPENING, price -> INCREMENT, List.of(
+                new Proxy(1L, amount(60), EARLY),
+                new Proxy(2L, amount(100), LATE)));
+
+        assertEquals(List.of(new AutoBid(1L, amount(60)), new AutoBid(2L, amount(65))), bids);
+    }
+
+    @Test
+    void theWinnerStopsAtItsOwnMaximum() {
+        List<AutoBid> bids = ProxyBidBook.resolve(1L, amount(20), OPENING, price -> INCREMENT, List.of(
+                new Proxy(1L, amount(60), EARLY),
+                new Proxy(2L, amount(62), LATE)));
+
+        assertEquals(List.of(new AutoBid(1L, amount(60)), new AutoBid(2L, amount(62))), bids);
+    }
+
+    @Test
+    void theEarlierProxyWinsATie() {
+        List<AutoBid> bids = ProxyBidBook.resolve(3L, amount(20), OPENING, price -> INCREMENT, List.of(
+                new Proxy(1L, amount(80), LATE),
+                new Proxy(2L, amount(80), EARLY)));
+
+        assertEquals(List.of(new AutoBid(2L, amount(80))), bids);
+    }
+
+    @Test
+    void exhaustedProxiesStayQuiet() {
+        List<AutoBid> bids = ProxyBidBook.resolve(3L, amount(90), OPENING, price -> INCREMENT, List.of(
+                new Proxy(1L, amount(80), EARLY),
+                new Proxy(2L, amount(90), LATE)));
+
+        assertEquals(List.of(), bids);
+    }
+
+    private static BigDecimal amount(long value) {
+        return BigDecimal.valueOf(value);
+    }
+}
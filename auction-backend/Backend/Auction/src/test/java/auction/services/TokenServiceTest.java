@@ -0,0 +1,46 @@
+package auction.services;
+
+import auction.entities.DTO.UserPrincipal;
+import auction.entities.enums.Role;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+    private final TokenService tokenService = new TokenService("test-secret", Duration.ofHours(1));
+
+    @Test
+    void issuedTokenResolvesToItsUser() {
+        Optional<UserPrincipal> principal = tokenService.verify(tokenService.issue(42L, Role.SELLER));
+
+        assertTrue(principal.isPresent());
+        assertEquals(42L, principal.get().getId());
+        assertEquals(Role.SELLER, principal.get().getRole());
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = tokenService.issue(42L, Role.CUSTOMER);
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("42.ADMIN." + Long.MAX_VALUE).getBytes());
+        String forged = forgedPayload + token.substring(token.indexOf('.'));
+
+        assertTrue(tokenService.verify(forged).isEmpty());
+        assertTrue(tokenService.verify("not-a-token").isEmpty());
+    }
+
+    @Test
+    void tokenFromAnotherKeyOrExpiredIsRejected() {
+        String foreign = new TokenService("other-secret", Duration.ofHours(1)).issue(42L, Role.CUSTOMER);
+        String expired = new TokenService("test-secret", Duration.ofSeconds(-1)).issue(42L, Role.CUSTOMER);
+
+        assertTrue(tokenService.verify(foreign).isEmpty());
+        assertTrue(tokenService.verify(expired).isEmpty());
+    }
+}